@@ -3,8 +3,18 @@ package com.mygame;
 import com.mygame.engine.Engine;
 import com.mygame.game.SandboxGame;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class Launcher {
+    // --record <файл> - записать ввод сессии для повтора в ReplayBenchmark
     public static void main(String[] args) {
-        new Engine(new SandboxGame()).start();
+        Path recordTo = null;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--record")) {
+                recordTo = Paths.get(args[i + 1]);
+            }
+        }
+        new Engine(new SandboxGame(recordTo)).start();
     }
 }
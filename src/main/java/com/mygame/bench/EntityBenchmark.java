@@ -0,0 +1,86 @@
+package com.mygame.bench;
+
+import com.mygame.engine.Engine;
+import com.mygame.engine.TickScheduler;
+import com.mygame.engine.entity.EntityStore;
+import com.mygame.engine.entity.Mob;
+import com.mygame.engine.entity.Player;
+import com.mygame.world.EntityUpdater;
+import com.mygame.world.World;
+
+import java.util.Arrays;
+
+// Обновление множества простых сущностей без окна: мобы сеткой вокруг игрока падают на рельеф,
+// после чего замеряется тик EntityUpdater (сетка соседей, физика, расталкивание): для улёгшейся
+// толпы и для той же толпы, которую каждый тик будят, - так видна цена полной физики.
+// Запуск из корня проекта: java -cp <classpath> com.mygame.bench.EntityBenchmark [сущностей] [тиков]
+public class EntityBenchmark {
+    // Тиков на прогрузку чанков вокруг игрока до появления мобов
+    private static final int WARMUP_TICKS = 120;
+    // Тиков на приземление мобов и прогрев JIT
+    private static final int SETTLE_TICKS = 600;
+    private static final float SPACING = 0.5f;
+    private static final float SPAWN_HEIGHT = 40f;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+
+        World world = new World();
+        TickScheduler scheduler = new TickScheduler(Engine.TICK_RATE);
+        world.registerSystems(scheduler);
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            scheduler.tick();
+        }
+
+        EntityStore store = world.getEntityStore();
+        Player player = world.getPlayer();
+        int side = (int) Math.ceil(Math.sqrt(count));
+        float origin = -side * SPACING / 2f;
+        for (int i = 0; i < count; i++) {
+            float x = player.getX() + origin + (i % side) * SPACING;
+            float z = player.getZ() + origin + (i / side) * SPACING;
+            new Mob(store, x, SPAWN_HEIGHT, z, 0.2f, 0.8f);
+        }
+
+        EntityUpdater updater = world.getEntityUpdater();
+        // Обновление зовётся напрямую, без планировщика, поэтому начало тика (сохранение
+        // предыдущего состояния, по которому EntityUpdater.wake видит движение) делаем сами
+        for (int i = 0; i < SETTLE_TICKS; i++) {
+            store.savePrevState();
+            updater.update(store, Engine.TICK_SECONDS);
+        }
+
+        for (boolean awake : new boolean[]{false, true}) {
+            for (boolean parallel : new boolean[]{false, true}) {
+                updater.setParallel(parallel);
+                long[] samples = new long[ticks];
+                for (int i = 0; i < ticks; i++) {
+                    if (awake) {
+                        for (int id = 0; id < store.getSize(); id++) {
+                            store.setResting(id, false);
+                        }
+                    }
+                    store.savePrevState();
+                    long start = System.nanoTime();
+                    updater.update(store, Engine.TICK_SECONDS);
+                    samples[i] = System.nanoTime() - start;
+                }
+                Arrays.sort(samples);
+                long total = 0;
+                for (long sample : samples) {
+                    total += sample;
+                }
+                System.out.printf("%s, %s: %d сущностей, тик в среднем %.3f мс, p50 %.3f мс, p99 %.3f мс%n",
+                        awake ? "все активны" : "улеглись", parallel ? "параллельно" : "последовательно",
+                        store.getSize(), total / 1e6 / ticks, samples[ticks / 2] / 1e6, samples[ticks * 99 / 100] / 1e6);
+            }
+        }
+
+        int grounded = 0;
+        for (int id = 0; id < store.getSize(); id++) {
+            if (store.isOnGround(id)) grounded++;
+        }
+        System.out.printf("На земле: %d из %d%n", grounded, store.getSize());
+    }
+}
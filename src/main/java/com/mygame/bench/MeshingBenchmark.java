@@ -0,0 +1,89 @@
+package com.mygame.bench;
+
+import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkMeshEmitter;
+import com.mygame.world.chunk.ChunkSnapshot;
+
+import java.util.Arrays;
+
+// Сравнение Chunk.buildMesh и бинарного мешера на реально сгенерированном рельефе.
+// Запуск: java -cp <classpath> com.mygame.bench.MeshingBenchmark [итераций]
+public class MeshingBenchmark {
+    private static final int GRID = 5;
+    private static final int WARMUP = 200;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        Chunk[][] grid = new Chunk[GRID][GRID];
+        for (int x = 0; x < GRID; x++) {
+            for (int z = 0; z < GRID; z++) {
+                grid[x][z] = new Chunk(x, z);
+            }
+        }
+
+        // Внутренние чанки - со всеми четырьмя соседями
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[(GRID - 2) * (GRID - 2)];
+        Chunk[] chunks = new Chunk[snapshots.length];
+        int n = 0;
+        for (int x = 1; x < GRID - 1; x++) {
+            for (int z = 1; z < GRID - 1; z++) {
+                chunks[n] = grid[x][z];
+                snapshots[n] = new ChunkSnapshot(grid[x][z], grid[x - 1][z], grid[x + 1][z], grid[x][z - 1], grid[x][z + 1]);
+                n++;
+            }
+        }
+
+        verify(chunks, snapshots);
+
+        run(chunks, snapshots, WARMUP, false);
+        long reference = run(chunks, snapshots, iterations, false);
+        run(chunks, snapshots, WARMUP, true);
+        long binary = run(chunks, snapshots, iterations, true);
+
+        long meshes = (long) iterations * chunks.length;
+        System.out.printf("Chunk.buildMesh:       %8.1f мкс/чанк%n", reference / 1000.0 / meshes);
+        System.out.printf("Chunk.buildBinaryMesh: %8.1f мкс/чанк%n", binary / 1000.0 / meshes);
+        System.out.printf("Ускорение: %.2fx%n", (double) reference / binary);
+    }
+
+    private static long run(Chunk[] chunks, ChunkSnapshot[] snapshots, int iterations, boolean binary) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (int c = 0; c < chunks.length; c++) {
+                if (binary) {
+                    chunks[c].buildBinaryMesh(snapshots[c]);
+                } else {
+                    chunks[c].buildMesh(snapshots[c]);
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Оба пути должны выдавать одинаковый набор граней, порядок значения не имеет
+    private static void verify(Chunk[] chunks, ChunkSnapshot[] snapshots) {
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c].buildMesh(snapshots[c]);
+            float[][] reference = faces(chunks[c].getMesh().getVertices());
+            chunks[c].buildBinaryMesh(snapshots[c]);
+            float[][] binary = faces(chunks[c].getMesh().getVertices());
+
+            if (!Arrays.deepEquals(reference, binary)) {
+                throw new IllegalStateException("Меши различаются для чанка " + chunks[c].getChunkX() + ", " + chunks[c].getChunkZ()
+                        + ": " + reference.length + " граней против " + binary.length);
+            }
+        }
+        System.out.println("Меши совпадают для " + chunks.length + " чанков");
+    }
+
+    private static float[][] faces(float[] vertices) {
+        int faceSize = ChunkMeshEmitter.FLOATS_PER_VERTEX * 6;
+        float[][] faces = new float[vertices.length / faceSize][];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = Arrays.copyOfRange(vertices, i * faceSize, (i + 1) * faceSize);
+        }
+        Arrays.sort(faces, Arrays::compare);
+        return faces;
+    }
+}
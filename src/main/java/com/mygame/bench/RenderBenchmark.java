@@ -0,0 +1,89 @@
+package com.mygame.bench;
+
+import com.mygame.engine.Engine;
+import com.mygame.engine.FrameSnapshot;
+import com.mygame.engine.TickScheduler;
+import com.mygame.engine.graphics.Camera;
+import com.mygame.engine.graphics.Renderer;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.RecordingGlBackend;
+import com.mygame.world.World;
+import org.joml.Vector3f;
+
+// Рендер без окна и GPU: мир крутится как в игре, кадры идут через RecordingGlBackend,
+// который считает вызовы отрисовки, смены состояния и загрузки в буферы.
+// Камера поворачивается по кругу, чтобы через кадр проходили разные наборы чанков.
+// Запуск из корня проекта: java -cp <classpath> com.mygame.bench.RenderBenchmark [кадров]
+public class RenderBenchmark {
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    // Тиков на прогрузку чанков вокруг игрока до начала замеров
+    private static final int WARMUP_TICKS = 120;
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+
+        RecordingGlBackend gl = new RecordingGlBackend();
+        Gl.set(gl);
+
+        World world = new World();
+        Renderer renderer = new Renderer(WIDTH, HEIGHT);
+        Camera camera = new Camera();
+        Vector3f eye = new Vector3f();
+        TickScheduler scheduler = new TickScheduler(Engine.TICK_RATE);
+        world.registerSystems(scheduler);
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            scheduler.tick();
+        }
+        // Накопленные при прогрузке меши расходятся по кадрам в пределах бюджета загрузок
+        int warmupFrames = 0;
+        do {
+            renderFrame(world, renderer, camera, eye, scheduler.getTick(), 0f);
+            warmupFrames++;
+        } while (renderer.getUploadScheduler().getPendingCount() > 0);
+        System.out.printf("Прогрузка: %d загрузок, %.1f КБ за %d кадров%n",
+                gl.getUploads(), gl.getUploadBytes() / 1024.0, warmupFrames);
+
+        gl.reset();
+        long drawCalls = 0, drawCommands = 0, vertices = 0, stateChanges = 0, bufferBinds = 0, uploads = 0, uploadBytes = 0;
+        long cpuNanos = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            scheduler.tick();
+
+            float yaw = 360f * frame / frames;
+            long start = System.nanoTime();
+            renderFrame(world, renderer, camera, eye, scheduler.getTick(), yaw);
+            cpuNanos += System.nanoTime() - start;
+
+            drawCalls += gl.getDrawCalls();
+            drawCommands += gl.getDrawCommands();
+            vertices += gl.getVertices();
+            stateChanges += gl.getStateChanges();
+            bufferBinds += gl.getBufferBinds();
+            uploads += gl.getUploads();
+            uploadBytes += gl.getUploadBytes();
+            gl.reset();
+        }
+
+        System.out.printf("Кадров: %d, чанков нарисовано в последнем: %d (вне пирамиды %d, перекрыто %d)%n",
+                frames, renderer.getDrawnChunks(), renderer.getCulledChunks(), renderer.getOccludedChunks());
+        System.out.printf("Вызовов отрисовки: %8.1f /кадр (команд %.1f, вершин %.0f)%n",
+                (double) drawCalls / frames, (double) drawCommands / frames, (double) vertices / frames);
+        System.out.printf("Смен состояния:    %8.1f /кадр, привязок буферов %.1f%n",
+                (double) stateChanges / frames, (double) bufferBinds / frames);
+        System.out.printf("Загрузок:          %8.1f /кадр, %.1f КБ/кадр%n",
+                (double) uploads / frames, uploadBytes / 1024.0 / frames);
+        System.out.printf("CPU рендера:       %8.3f мс/кадр%n", cpuNanos / 1e6 / frames);
+
+        renderer.cleanup();
+    }
+
+    private static void renderFrame(World world, Renderer renderer, Camera camera, Vector3f eye, long tick, float yaw) {
+        FrameSnapshot snapshot = world.captureFrame(tick, System.nanoTime());
+        camera.setPosition(snapshot.eye().interpolate(1f, eye));
+        camera.update(yaw, snapshot.pitch());
+        renderer.beginScene(camera, WIDTH, HEIGHT);
+        world.render(renderer, snapshot, 1f);
+    }
+}
@@ -0,0 +1,124 @@
+package com.mygame.bench;
+
+import com.mygame.engine.Engine;
+import com.mygame.engine.InputRecording;
+import com.mygame.engine.PlayerController;
+import com.mygame.engine.PlayerInput;
+import com.mygame.engine.TickScheduler;
+import com.mygame.engine.TickSystem;
+import com.mygame.engine.physics.PhysicsSystem;
+import com.mygame.game.SandboxGame;
+import com.mygame.world.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+// Повтор записанной сессии без окна и рендера: World, Player и PhysicsSystem получают те же
+// команды на те же тики, что и в игре. Печатает перцентили времени тика и сверяет итоговое
+// положение игрока и изменения блоков с записью бит в бит; при расхождении код выхода 1.
+// Записать сессию: Launcher --record <файл>. Без игры запись можно получить из сценария:
+// обход по кругу с прыжками и ударами по блокам.
+// Запуск из корня проекта:
+//   java -cp <classpath> com.mygame.bench.ReplayBenchmark <файл>
+//   java -cp <classpath> com.mygame.bench.ReplayBenchmark --script <файл> [тиков]
+public class ReplayBenchmark {
+    private static final int SCRIPT_TICKS = 3600;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("--script")) {
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : SCRIPT_TICKS;
+            script(Paths.get(args[1]), ticks);
+            return;
+        }
+        if (args.length != 1) {
+            System.err.println("Использование: ReplayBenchmark <файл> | --script <файл> [тиков]");
+            System.exit(2);
+        }
+
+        Path file = Paths.get(args[0]);
+        InputRecording recording = InputRecording.load(file);
+        List<InputRecording.Tick> ticks = recording.getTicks();
+        if (ticks.isEmpty()) {
+            System.err.println("Запись пуста: " + file);
+            System.exit(2);
+        }
+
+        World world = new World();
+        PlayerController controller = new PlayerController(world.getPlayer(), PhysicsSystem.getInstance(), world);
+        int[] next = {0};
+        TickScheduler scheduler = createScheduler(world, deltaTime -> {
+            InputRecording.Tick tick = ticks.get(next[0]++);
+            world.getGovernor().pin(tick.viewDistance(), tick.chunksPerTick());
+            controller.apply(tick.input(), deltaTime, world);
+        });
+
+        long[] samples = new long[ticks.size()];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            scheduler.tick();
+            samples[i] = System.nanoTime() - start;
+        }
+        printPercentiles(samples);
+
+        String mismatch = InputRecording.Outcome.of(world).mismatch(recording.getOutcome());
+        if (mismatch != null) {
+            System.out.println("Повтор разошёлся с записью: " + mismatch);
+            System.exit(1);
+        }
+        System.out.printf("Повтор совпал с записью: %d тиков, изменений блоков %d%n",
+                samples.length, world.getEdits().size());
+    }
+
+    // Ввод на каждый тик - с тем же регистрационным порядком систем, что и в SandboxGame
+    private static TickScheduler createScheduler(World world, TickSystem.Step input) {
+        TickScheduler scheduler = new TickScheduler(Engine.TICK_RATE);
+        scheduler.register(new TickSystem("input", SandboxGame.INPUT_TICK_RATE, input));
+        world.registerSystems(scheduler);
+        return scheduler;
+    }
+
+    private static void script(Path file, int ticks) throws IOException {
+        World world = new World();
+        PlayerController controller = new PlayerController(world.getPlayer(), PhysicsSystem.getInstance(), world);
+        InputRecording recording = new InputRecording();
+        int[] tick = {0};
+        TickScheduler scheduler = createScheduler(world, deltaTime -> {
+            PlayerInput input = scriptedInput(tick[0]++);
+            recording.record(input, world.getGovernor());
+            controller.apply(input, deltaTime, world);
+        });
+
+        for (int i = 0; i < ticks; i++) {
+            scheduler.tick();
+        }
+        recording.setOutcome(InputRecording.Outcome.of(world));
+        recording.save(file);
+        System.out.printf("Сценарий: %d тиков, изменений блоков %d, сохранено в %s%n",
+                ticks, world.getEdits().size(), file);
+    }
+
+    // Первые полсекунды взгляд опускается к земле, дальше - шаг вперёд с поворотом,
+    // прыжок раз в полторы секунды и удар раз в три четверти секунды
+    private static PlayerInput scriptedInput(int tick) {
+        float mouseDy = tick < 30 ? -8f : 0f;
+        boolean jump = tick % 90 == 0;
+        int punches = tick % 45 == 0 ? 1 : 0;
+        return new PlayerInput(tick >= 30, false, false, false, jump, 1.5f, mouseDy, punches);
+    }
+
+    private static void printPercentiles(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+        int n = sorted.length;
+        System.out.printf("Тиков: %d, в среднем %.3f мс, p50 %.3f мс, p90 %.3f мс, p99 %.3f мс, максимум %.3f мс%n",
+                n, total / 1e6 / n, sorted[n / 2] / 1e6, sorted[n * 9 / 10] / 1e6, sorted[n * 99 / 100] / 1e6,
+                sorted[n - 1] / 1e6);
+    }
+}
@@ -2,11 +2,13 @@ package com.mygame.engine;
 
 import com.mygame.engine.graphics.Renderer;
 import com.mygame.engine.graphics.shader.ShaderManager;
+import com.mygame.engine.profiler.Profiler;
 import com.mygame.game.Game;
 
-import static org.lwjgl.glfw.GLFW.glfwGetTime;
-
 public class Engine {
+    public static final int TICK_RATE = 60;
+    public static final float TICK_SECONDS = 1.0f / TICK_RATE;
+
     private final Game game;
     private Window window;
 
@@ -19,17 +21,27 @@ public class Engine {
 
         game.init(window);
 
-        float lastTime = (float) glfwGetTime();
+        SimulationThread simulation = new SimulationThread(game, TICK_RATE);
+        simulation.start();
 
-        while (!window.shouldClosed()) {
-            float currentTime = (float) glfwGetTime();
-            float deltaTime = currentTime - lastTime;
-            lastTime = currentTime;
+        Profiler profiler = Profiler.getInstance();
+        long lastFrame = System.nanoTime();
+        while (!window.shouldClosed() && simulation.isAlive()) {
+            profiler.begin("frame");
+            game.sampleInput();
 
-            game.update(deltaTime);
-            game.render();
+            FrameSnapshot snapshot = simulation.getSnapshot();
+            game.render(snapshot, snapshot.alpha(System.nanoTime(), simulation.getTickNanos()));
+            profiler.end();
             window.update();
+
+            // Время кадра считается вместе с ожиданием vsync в swapBuffers
+            long now = System.nanoTime();
+            profiler.endFrame(now - lastFrame);
+            lastFrame = now;
         }
+        simulation.stop();
+        game.shutdown();
         cleanup(game.getRenderer());
         window.destroy();
     }
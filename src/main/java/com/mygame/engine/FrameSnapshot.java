@@ -0,0 +1,54 @@
+package com.mygame.engine;
+
+import org.joml.Vector3f;
+
+import java.util.List;
+
+// Неизменяемое состояние мира после тика, которое поток симуляции публикует для рендера.
+// Хранит и предыдущее, и текущее положение и взгляд, чтобы рендер интерполировал между ними.
+// Поворот взгляда игрока берётся из eye.
+public record FrameSnapshot(
+        long tick,
+        long timeNanos,
+        EntityState eye,
+        float prevPitch,
+        float pitch,
+        List<EntityState> entities
+) {
+    public record EntityState(
+            float prevX, float prevY, float prevZ,
+            float x, float y, float z,
+            float prevYaw, float yaw,
+            float radius,
+            float height
+    ) {
+        public Vector3f interpolate(float alpha, Vector3f dest) {
+            return dest.set(
+                    prevX + (x - prevX) * alpha,
+                    prevY + (y - prevY) * alpha,
+                    prevZ + (z - prevZ) * alpha
+            );
+        }
+
+        public float interpolateYaw(float alpha) {
+            return interpolateAngle(prevYaw, yaw, alpha);
+        }
+    }
+
+    public float interpolatePitch(float alpha) {
+        return interpolateAngle(prevPitch, pitch, alpha);
+    }
+
+    // Углы в градусах: идём по короткой дуге, чтобы переход через 360 не крутил камеру в обратную сторону
+    private static float interpolateAngle(float prev, float current, float alpha) {
+        float delta = current - prev;
+        delta -= 360f * Math.round(delta / 360f);
+        return prev + delta * alpha;
+    }
+
+    // Доля тика, прошедшая с момента тика снимка (см. SimulationThread), от 0 до 1
+    public float alpha(long nowNanos, long tickNanos) {
+        float alpha = (float) (nowNanos - timeNanos) / tickNanos;
+        return Math.max(0f, Math.min(1f, alpha));
+    }
+}
@@ -1,30 +1,34 @@
 package com.mygame.engine;
 
-import com.mygame.engine.entity.Player;
-import com.mygame.engine.physics.PhysicsSystem;
-import com.mygame.world.block.Block;
-import com.mygame.world.World;
-import org.joml.Vector3f;
-
-import java.util.List;
+import com.mygame.engine.profiler.Profiler;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+// Ввод снимается в главном потоке (GLFW можно опрашивать только там) и копится до следующего тика,
+// а применяется к игроку в потоке симуляции через команду PlayerInput (см. PlayerController)
 public class InputHandler {
     private final Window window;
-    private final Player player;
-    private final PhysicsSystem physicsSystem;
-    private final World world;
+
+    private final Profiler profiler = Profiler.getInstance();
+    private boolean overlayKeyDown;
+    private boolean captureKeyDown;
 
     private boolean firstMouse = true;
     private double lastX;
     private double lastY;
 
-    public InputHandler(Window window, Player player, PhysicsSystem physicsSystem, World world) {
+    // Состояние, накопленное главным потоком; защищено монитором this
+    private boolean forward;
+    private boolean back;
+    private boolean left;
+    private boolean right;
+    private boolean jump;
+    private float mouseDx;
+    private float mouseDy;
+    private int punches;
+
+    public InputHandler(Window window) {
         this.window = window;
-        this.player = player;
-        this.physicsSystem = physicsSystem;
-        this.world = world;
         initMouse();
     }
 
@@ -42,54 +46,53 @@ public class InputHandler {
             lastX = xpos;
             lastY = ypos;
 
-            player.rotate(xOffset, yOffset);
+            synchronized (this) {
+                mouseDx += xOffset;
+                mouseDy += yOffset;
+            }
         });
 
         glfwSetMouseButtonCallback(window.getHandle(), (win, button, action, mods) -> {
             if (button == GLFW_MOUSE_BUTTON_LEFT) {
-                player.punchRightHand(world);
+                synchronized (this) {
+                    punches++;
+                }
             }
         });
 
         glfwSetInputMode(window.getHandle(), GLFW_CURSOR, GLFW_CURSOR_DISABLED);
     }
 
-    public void processInput(float deltaTime, List<Block> blocks) {
-        float speed = player.getMoveSpeed() * deltaTime;
-
-        float dx = 0;
-        float dz = 0;
-
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_W) == GLFW_PRESS) {
-            Vector3f f = player.frontXZ();
-            dx += f.x * speed;
-            dz += f.z * speed;
+    // Главный поток, после glfwPollEvents
+    public void sample() {
+        long handle = window.getHandle();
+        synchronized (this) {
+            forward = glfwGetKey(handle, GLFW_KEY_W) == GLFW_PRESS;
+            back = glfwGetKey(handle, GLFW_KEY_S) == GLFW_PRESS;
+            left = glfwGetKey(handle, GLFW_KEY_A) == GLFW_PRESS;
+            right = glfwGetKey(handle, GLFW_KEY_D) == GLFW_PRESS;
+            jump = glfwGetKey(handle, GLFW_KEY_SPACE) == GLFW_PRESS;
         }
 
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_S) == GLFW_PRESS) {
-            Vector3f f = player.frontXZ();
-            dx -= f.x * speed;
-            dz -= f.z * speed;
-        }
+        if (glfwGetKey(handle, GLFW_KEY_ESCAPE) == GLFW_PRESS)
+            glfwSetWindowShouldClose(handle, true);
 
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_A) == GLFW_PRESS) {
-            Vector3f r = player.rightXZ();
-            dx -= r.x * speed;
-            dz -= r.z * speed;
-        }
-
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_D) == GLFW_PRESS) {
-            Vector3f r = player.rightXZ();
-            dx += r.x * speed;
-            dz += r.z * speed;
-        }
+        // F3 - оверлей профайлера, F4 - начать/сохранить запись; срабатывают на нажатие, а не удержание
+        boolean overlayKey = glfwGetKey(handle, GLFW_KEY_F3) == GLFW_PRESS;
+        if (overlayKey && !overlayKeyDown) profiler.toggleOverlay();
+        overlayKeyDown = overlayKey;
 
-        physicsSystem.moveHorizontal(dx, dz, player, blocks);
-
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_SPACE) == GLFW_PRESS)
-            player.jump();
+        boolean captureKey = glfwGetKey(handle, GLFW_KEY_F4) == GLFW_PRESS;
+        if (captureKey && !captureKeyDown) profiler.toggleCapture();
+        captureKeyDown = captureKey;
+    }
 
-        if (glfwGetKey(window.getHandle(), GLFW_KEY_ESCAPE) == GLFW_PRESS)
-            glfwSetWindowShouldClose(window.getHandle(), true);
+    // Поток симуляции: забирает команду на тик, мышь и клики обнуляются
+    public synchronized PlayerInput nextCommand() {
+        PlayerInput input = new PlayerInput(forward, back, left, right, jump, mouseDx, mouseDy, punches);
+        mouseDx = 0;
+        mouseDy = 0;
+        punches = 0;
+        return input;
     }
 }
@@ -0,0 +1,138 @@
+package com.mygame.engine;
+
+import com.mygame.engine.entity.Player;
+import com.mygame.world.BlockEdit;
+import com.mygame.world.ViewDistanceGovernor;
+import com.mygame.world.World;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запись игровой сессии с нового мира: команда игрока на каждый тик и итог, с которым повтор
+// должен сойтись бит в бит. Кроме ввода записываются дальность и бюджет подгрузки чанков -
+// их регулятор выбирает по нагрузке машины, а от них зависит, где у игрока под ногами блоки.
+// Пишется и читается в потоке симуляции либо после его остановки.
+public class InputRecording {
+    private static final int MAGIC = 0x52504C59; // "RPLY"
+    private static final int VERSION = 1;
+
+    public record Tick(PlayerInput input, int viewDistance, int chunksPerTick) {
+    }
+
+    // Положение и взгляд игрока - сырые биты float, чтобы сравнение было точным
+    public record Outcome(float x, float y, float z, float yaw, float pitch, List<BlockEdit> edits) {
+        public static Outcome of(World world) {
+            Player player = world.getPlayer();
+            return new Outcome(player.getX(), player.getY(), player.getZ(), player.getYaw(), player.getPitch(),
+                    List.copyOf(world.getEdits()));
+        }
+
+        // Первое расхождение с ожидаемым итогом или null, если совпало всё
+        public String mismatch(Outcome expected) {
+            if (!sameBits(x, expected.x) || !sameBits(y, expected.y) || !sameBits(z, expected.z)) {
+                return String.format("положение игрока (%s, %s, %s), ожидалось (%s, %s, %s)",
+                        x, y, z, expected.x, expected.y, expected.z);
+            }
+            if (!sameBits(yaw, expected.yaw) || !sameBits(pitch, expected.pitch)) {
+                return String.format("взгляд игрока (%s, %s), ожидался (%s, %s)", yaw, pitch, expected.yaw, expected.pitch);
+            }
+            if (!edits.equals(expected.edits)) {
+                return String.format("изменения блоков: %d, ожидалось %d", edits.size(), expected.edits.size());
+            }
+            return null;
+        }
+
+        private static boolean sameBits(float a, float b) {
+            return Float.floatToRawIntBits(a) == Float.floatToRawIntBits(b);
+        }
+    }
+
+    @Getter
+    private final List<Tick> ticks = new ArrayList<>();
+    @Getter
+    @Setter
+    private Outcome outcome;
+
+    public void record(PlayerInput input, ViewDistanceGovernor governor) {
+        ticks.add(new Tick(input, governor.getViewDistance(), governor.getChunksPerTick()));
+    }
+
+    public void save(Path file) throws IOException {
+        if (outcome == null) {
+            throw new IllegalStateException("Запись не завершена: нет итога");
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ticks.size());
+            for (Tick tick : ticks) {
+                PlayerInput input = tick.input();
+                out.writeByte((input.forward() ? 1 : 0) | (input.back() ? 2 : 0) | (input.left() ? 4 : 0)
+                        | (input.right() ? 8 : 0) | (input.jump() ? 16 : 0));
+                writeFloat(out, input.mouseDx());
+                writeFloat(out, input.mouseDy());
+                out.writeInt(input.punches());
+                out.writeByte(tick.viewDistance());
+                out.writeByte(tick.chunksPerTick());
+            }
+
+            writeFloat(out, outcome.x());
+            writeFloat(out, outcome.y());
+            writeFloat(out, outcome.z());
+            writeFloat(out, outcome.yaw());
+            writeFloat(out, outcome.pitch());
+            out.writeInt(outcome.edits().size());
+            for (BlockEdit edit : outcome.edits()) {
+                out.writeInt(edit.x());
+                out.writeInt(edit.y());
+                out.writeInt(edit.z());
+            }
+        }
+    }
+
+    public static InputRecording load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Не запись ввода или неизвестная версия: " + file);
+            }
+
+            InputRecording recording = new InputRecording();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int keys = in.readByte();
+                PlayerInput input = new PlayerInput((keys & 1) != 0, (keys & 2) != 0, (keys & 4) != 0,
+                        (keys & 8) != 0, (keys & 16) != 0, readFloat(in), readFloat(in), in.readInt());
+                recording.ticks.add(new Tick(input, in.readByte(), in.readByte()));
+            }
+
+            float x = readFloat(in);
+            float y = readFloat(in);
+            float z = readFloat(in);
+            float yaw = readFloat(in);
+            float pitch = readFloat(in);
+            int editCount = in.readInt();
+            List<BlockEdit> edits = new ArrayList<>(editCount);
+            for (int i = 0; i < editCount; i++) {
+                edits.add(new BlockEdit(in.readInt(), in.readInt(), in.readInt()));
+            }
+            recording.outcome = new Outcome(x, y, z, yaw, pitch, List.copyOf(edits));
+            return recording;
+        }
+    }
+
+    private static void writeFloat(DataOutputStream out, float value) throws IOException {
+        out.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    private static float readFloat(DataInputStream in) throws IOException {
+        return Float.intBitsToFloat(in.readInt());
+    }
+}
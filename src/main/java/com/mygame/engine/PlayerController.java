@@ -0,0 +1,63 @@
+package com.mygame.engine;
+
+import com.mygame.engine.entity.Player;
+import com.mygame.engine.physics.PhysicsSystem;
+import com.mygame.world.VoxelQuery;
+import com.mygame.world.World;
+import org.joml.Vector3f;
+
+// Исполняет команду PlayerInput над игроком в потоке симуляции. Не знает, откуда пришла
+// команда - из окна через InputHandler или из записи при безоконном повторе.
+public class PlayerController {
+    private final Player player;
+    private final PhysicsSystem physicsSystem;
+    private final World world;
+    // Направления движения за тик, чтобы не создавать векторы на каждую клавишу
+    private final Vector3f moveFront = new Vector3f();
+    private final Vector3f moveRight = new Vector3f();
+
+    public PlayerController(Player player, PhysicsSystem physicsSystem, World world) {
+        this.player = player;
+        this.physicsSystem = physicsSystem;
+        this.world = world;
+    }
+
+    public void apply(PlayerInput input, float deltaTime, VoxelQuery voxels) {
+        player.rotate(input.mouseDx(), input.mouseDy());
+        for (int i = 0; i < input.punches(); i++) {
+            player.punchRightHand(world);
+        }
+
+        float speed = player.getMoveSpeed() * deltaTime;
+
+        float dx = 0;
+        float dz = 0;
+        Vector3f f = player.frontXZ(moveFront);
+        Vector3f r = player.rightXZ(moveRight);
+
+        if (input.forward()) {
+            dx += f.x * speed;
+            dz += f.z * speed;
+        }
+
+        if (input.back()) {
+            dx -= f.x * speed;
+            dz -= f.z * speed;
+        }
+
+        if (input.left()) {
+            dx -= r.x * speed;
+            dz -= r.z * speed;
+        }
+
+        if (input.right()) {
+            dx += r.x * speed;
+            dz += r.z * speed;
+        }
+
+        physicsSystem.moveHorizontal(dx, dz, player, voxels);
+
+        if (input.jump())
+            player.jump();
+    }
+}
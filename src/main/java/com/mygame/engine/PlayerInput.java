@@ -0,0 +1,16 @@
+package com.mygame.engine;
+
+// Команда игрока на один тик: состояние клавиш и накопленные с прошлого тика
+// смещение мыши и клики. Снимается в главном потоке, исполняется в потоке симуляции.
+public record PlayerInput(
+        boolean forward,
+        boolean back,
+        boolean left,
+        boolean right,
+        boolean jump,
+        float mouseDx,
+        float mouseDy,
+        int punches
+) {
+    public static final PlayerInput NONE = new PlayerInput(false, false, false, false, false, 0f, 0f, 0);
+}
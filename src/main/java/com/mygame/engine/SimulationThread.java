@@ -0,0 +1,82 @@
+package com.mygame.engine;
+
+import com.mygame.engine.profiler.Profiler;
+import com.mygame.game.Game;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Поток симуляции: отдаёт реальное время планировщику тиков и после каждой пачки тиков
+// публикует снимок. Главный поток только рисует последний снимок, поэтому медленный тик не режет FPS.
+// Время снимка - момент, когда прошёл его тик, без остатка аккумулятора: рендер досчитывает
+// долю тика от этого момента, так что интерполяция идёт от остатка, а не от задержки публикации.
+public class SimulationThread {
+    private final Game game;
+    private final Profiler profiler = Profiler.getInstance();
+    @Getter
+    private final TickScheduler scheduler;
+    private final AtomicReference<FrameSnapshot> latest = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean running;
+    @Getter
+    private volatile Throwable failure;
+
+    public SimulationThread(Game game, int tickRate) {
+        this.game = game;
+        this.scheduler = new TickScheduler(tickRate);
+        game.registerSystems(scheduler);
+        this.thread = new Thread(this::run, "simulation");
+        this.thread.setDaemon(true);
+        // Первый снимок публикуется сразу, чтобы рендеру было что рисовать до первого тика
+        latest.set(game.captureFrame(0, System.nanoTime()));
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public FrameSnapshot getSnapshot() {
+        return latest.get();
+    }
+
+    public long getTickNanos() {
+        return scheduler.getTickNanos();
+    }
+
+    public boolean isAlive() {
+        return running && failure == null;
+    }
+
+    private void run() {
+        long last = System.nanoTime();
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                profiler.begin("update");
+                int ticks = scheduler.advance(now - last);
+                profiler.end();
+                last = now;
+
+                if (ticks > 0) {
+                    latest.set(game.captureFrame(scheduler.getTick(), now - scheduler.getAccumulatorNanos()));
+                } else {
+                    LockSupport.parkNanos(scheduler.getNanosUntilNextTick());
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+            t.printStackTrace();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
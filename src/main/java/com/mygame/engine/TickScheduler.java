@@ -0,0 +1,98 @@
+package com.mygame.engine;
+
+import com.mygame.engine.profiler.Profiler;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Единственный владелец симуляции: тикает системы с фиксированным шагом в порядке регистрации.
+// Реальное время копится в аккумуляторе и расходуется целыми тиками; остаток - доля тика
+// для интерполяции рендера. Системы с частотой ниже базовой тикают на каждом n-м тике,
+// поэтому последовательность вызовов зависит только от номера тика, а не от времени.
+public class TickScheduler {
+    // Больше стольких тиков за один вызов advance не догоняем, остальное отставание отбрасывается,
+    // иначе медленный тик тянет за собой ещё больше тиков
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final Profiler profiler = Profiler.getInstance();
+    private final List<TickSystem> systems = new ArrayList<>();
+    private final List<Integer> intervals = new ArrayList<>();
+    private final List<Runnable> tickStartActions = new ArrayList<>();
+    @Getter
+    private final int tickRate;
+    @Getter
+    private final long tickNanos;
+    @Getter
+    private long tick;
+    @Getter
+    private long accumulatorNanos;
+    @Getter
+    private long droppedTicks;
+
+    public TickScheduler(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Частота тиков должна быть положительной: " + tickRate);
+        }
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
+    }
+
+    public void register(TickSystem system) {
+        int rate = system.tickRate();
+        if (rate <= 0 || tickRate % rate != 0) {
+            throw new IllegalArgumentException("Частота " + system.name() + " (" + rate
+                    + ") должна делить частоту планировщика " + tickRate);
+        }
+        systems.add(system);
+        intervals.add(tickRate / rate);
+    }
+
+    // Выполняется в начале каждого базового тика до всех систем, независимо от порядка регистрации
+    public void onTickStart(Runnable action) {
+        tickStartActions.add(action);
+    }
+
+    // Один базовый тик без учёта реального времени - для безоконных прогонов
+    public void tick() {
+        for (int i = 0; i < tickStartActions.size(); i++) {
+            tickStartActions.get(i).run();
+        }
+        for (int i = 0; i < systems.size(); i++) {
+            int interval = intervals.get(i);
+            if (tick % interval != 0) continue;
+
+            TickSystem system = systems.get(i);
+            profiler.begin(system.name());
+            system.step().tick(interval / (float) tickRate);
+            profiler.end();
+        }
+        tick++;
+    }
+
+    // Добавляет прошедшее время и выполняет накопившиеся тики; возвращает, сколько выполнено
+    public int advance(long elapsedNanos) {
+        accumulatorNanos += elapsedNanos;
+        int ticks = 0;
+        while (accumulatorNanos >= tickNanos && ticks < MAX_CATCH_UP_TICKS) {
+            tick();
+            accumulatorNanos -= tickNanos;
+            ticks++;
+        }
+        if (accumulatorNanos >= tickNanos) {
+            droppedTicks += accumulatorNanos / tickNanos;
+            accumulatorNanos %= tickNanos;
+        }
+        profiler.counter("dropped ticks", droppedTicks);
+        return ticks;
+    }
+
+    // Доля следующего тика, уже накопленная в аккумуляторе, от 0 до 1
+    public float getAlpha() {
+        return (float) accumulatorNanos / tickNanos;
+    }
+
+    public long getNanosUntilNextTick() {
+        return tickNanos - accumulatorNanos;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mygame.engine;
+
+// Часть симуляции, которую тикает TickScheduler. tickRate - тиков в секунду, должна делить
+// частоту планировщика: система получает шаг 1 / tickRate через равное число базовых тиков.
+// name - имя секции в профайлере.
+public record TickSystem(String name, int tickRate, Step step) {
+    @FunctionalInterface
+    public interface Step {
+        void tick(float deltaTime);
+    }
+}
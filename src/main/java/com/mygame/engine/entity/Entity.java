@@ -1,32 +1,104 @@
 package com.mygame.engine.entity;
 
-import com.mygame.engine.graphics.Renderer;
 import com.mygame.engine.physics.PhysicsSystem;
-import com.mygame.world.block.Block;
+import com.mygame.world.VoxelQuery;
 import lombok.Getter;
-import lombok.Setter;
 import org.joml.Vector3f;
 
-import java.util.List;
-
+// Вид на сущность id в EntityStore: своих данных у сущности нет, всё читается и пишется
+// в массивы хранилища. Векторные методы заполняют переданный вектор и возвращают его.
 @Getter
 public abstract class Entity {
-    protected Vector3f position = new Vector3f();
-    protected Vector3f prevPosition = new Vector3f();
-    protected Vector3f velocity = new Vector3f();
-    protected Vector3f front = new Vector3f(0, 0, -1);
-    protected Vector3f up = new Vector3f(0, 1, 0);
-    protected Vector3f right = new Vector3f(1, 0, 0);
-    protected PhysicsSystem physicsSystem = new PhysicsSystem();
-
-    protected float yaw = -90.0f;
-    protected float pitch = 0.0f;
-
-    protected float height = 1.8f;
-    protected float radius = 0.05f;
-    @Setter
-    protected boolean onGround = false;
-
-    public abstract void update(float deltaTime, List<Block> nearbyBlocks);
-    public abstract void render(Renderer renderer, Vector3f renderPos);
+    protected final EntityStore store;
+    // Меняется хранилищем, когда на место удалённой сущности переезжает эта
+    protected int id;
+    protected final PhysicsSystem physicsSystem = PhysicsSystem.getInstance();
+
+    protected Entity(EntityStore store) {
+        this.store = store;
+        this.id = store.add(this);
+    }
+
+    public abstract void update(float deltaTime, VoxelQuery voxels);
+
+    public float getX() {
+        return store.getPosX()[id];
+    }
+
+    public float getY() {
+        return store.getPosY()[id];
+    }
+
+    public float getZ() {
+        return store.getPosZ()[id];
+    }
+
+    public Vector3f getPosition(Vector3f dest) {
+        return dest.set(store.getPosX()[id], store.getPosY()[id], store.getPosZ()[id]);
+    }
+
+    public void setPosition(float x, float y, float z) {
+        store.getPosX()[id] = x;
+        store.getPosY()[id] = y;
+        store.getPosZ()[id] = z;
+    }
+
+    public Vector3f getPrevPosition(Vector3f dest) {
+        return dest.set(store.getPrevX()[id], store.getPrevY()[id], store.getPrevZ()[id]);
+    }
+
+    public Vector3f getVelocity(Vector3f dest) {
+        return dest.set(store.getVelX()[id], store.getVelY()[id], store.getVelZ()[id]);
+    }
+
+    public void setVelocity(float x, float y, float z) {
+        store.getVelX()[id] = x;
+        store.getVelY()[id] = y;
+        store.getVelZ()[id] = z;
+    }
+
+    public float getRadius() {
+        return store.getRadius()[id];
+    }
+
+    public float getHeight() {
+        return store.getHeight()[id];
+    }
+
+    protected void setBounds(float radius, float height) {
+        store.getRadius()[id] = radius;
+        store.getHeight()[id] = height;
+    }
+
+    public float getYaw() {
+        return store.getYaw()[id];
+    }
+
+    public float getPitch() {
+        return store.getPitch()[id];
+    }
+
+    protected void setRotation(float yaw, float pitch) {
+        store.getYaw()[id] = yaw;
+        store.getPitch()[id] = pitch;
+    }
+
+    public boolean isOnGround() {
+        return store.isOnGround(id);
+    }
+
+    public void setOnGround(boolean onGround) {
+        store.setOnGround(id, onGround);
+    }
+
+    // Направление взгляда по yaw и pitch
+    public Vector3f getFront(Vector3f dest) {
+        float yaw = (float) Math.toRadians(getYaw());
+        float pitch = (float) Math.toRadians(getPitch());
+        return dest.set(
+                (float) Math.cos(yaw) * (float) Math.cos(pitch),
+                (float) Math.sin(pitch),
+                (float) Math.sin(yaw) * (float) Math.cos(pitch)
+        ).normalize();
+    }
 }
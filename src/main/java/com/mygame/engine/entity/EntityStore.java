@@ -0,0 +1,135 @@
+package com.mygame.engine.entity;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+// Состояние всех сущностей мира в примитивных массивах, индекс - id сущности. Системы (физика,
+// сетка соседей, снимок для рендера) проходят массивы подряд, а Entity - лишь вид на свой id.
+// id плотные: при удалении последняя сущность переезжает на место удалённой.
+// Массивы пересоздаются при росте, поэтому ссылки на них нельзя держать дольше, чем до add().
+@Getter
+public class EntityStore {
+    public static final byte ON_GROUND = 1;
+    // Сущность стоит на месте и физика для неё ничего не изменит (см. EntityUpdater)
+    public static final byte RESTING = 2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private float[] posX = new float[INITIAL_CAPACITY];
+    private float[] posY = new float[INITIAL_CAPACITY];
+    private float[] posZ = new float[INITIAL_CAPACITY];
+    private float[] prevX = new float[INITIAL_CAPACITY];
+    private float[] prevY = new float[INITIAL_CAPACITY];
+    private float[] prevZ = new float[INITIAL_CAPACITY];
+    private float[] velX = new float[INITIAL_CAPACITY];
+    private float[] velY = new float[INITIAL_CAPACITY];
+    private float[] velZ = new float[INITIAL_CAPACITY];
+    private float[] radius = new float[INITIAL_CAPACITY];
+    private float[] height = new float[INITIAL_CAPACITY];
+    private float[] yaw = new float[INITIAL_CAPACITY];
+    private float[] pitch = new float[INITIAL_CAPACITY];
+    private float[] prevYaw = new float[INITIAL_CAPACITY];
+    private float[] prevPitch = new float[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private Entity[] views = new Entity[INITIAL_CAPACITY];
+
+    // Вызывается конструктором Entity
+    int add(Entity view) {
+        if (size == views.length) {
+            grow(size * 2);
+        }
+        int id = size++;
+        views[id] = view;
+        posX[id] = posY[id] = posZ[id] = 0f;
+        prevX[id] = prevY[id] = prevZ[id] = 0f;
+        velX[id] = velY[id] = velZ[id] = 0f;
+        radius[id] = 0.05f;
+        height[id] = 1.8f;
+        yaw[id] = prevYaw[id] = -90.0f;
+        pitch[id] = prevPitch[id] = 0f;
+        flags[id] = 0;
+        return id;
+    }
+
+    public void remove(Entity view) {
+        int id = view.getId();
+        if (id < 0 || id >= size || views[id] != view) {
+            throw new IllegalArgumentException("Сущность не из этого хранилища");
+        }
+
+        int last = --size;
+        if (id != last) {
+            posX[id] = posX[last];
+            posY[id] = posY[last];
+            posZ[id] = posZ[last];
+            prevX[id] = prevX[last];
+            prevY[id] = prevY[last];
+            prevZ[id] = prevZ[last];
+            velX[id] = velX[last];
+            velY[id] = velY[last];
+            velZ[id] = velZ[last];
+            radius[id] = radius[last];
+            height[id] = height[last];
+            yaw[id] = yaw[last];
+            pitch[id] = pitch[last];
+            prevYaw[id] = prevYaw[last];
+            prevPitch[id] = prevPitch[last];
+            flags[id] = flags[last];
+            views[id] = views[last];
+            views[id].id = id;
+        }
+        views[last] = null;
+        view.id = -1;
+    }
+
+    public Entity getView(int id) {
+        return views[id];
+    }
+
+    public boolean isOnGround(int id) {
+        return (flags[id] & ON_GROUND) != 0;
+    }
+
+    public void setOnGround(int id, boolean onGround) {
+        flags[id] = (byte) (onGround ? flags[id] | ON_GROUND : flags[id] & ~ON_GROUND);
+    }
+
+    public boolean isResting(int id) {
+        return (flags[id] & RESTING) != 0;
+    }
+
+    public void setResting(int id, boolean resting) {
+        flags[id] = (byte) (resting ? flags[id] | RESTING : flags[id] & ~RESTING);
+    }
+
+    // Начало тика, до ввода и физики: текущие положение и взгляд становятся предыдущими
+    // для интерполяции рендера
+    public void savePrevState() {
+        System.arraycopy(posX, 0, prevX, 0, size);
+        System.arraycopy(posY, 0, prevY, 0, size);
+        System.arraycopy(posZ, 0, prevZ, 0, size);
+        System.arraycopy(yaw, 0, prevYaw, 0, size);
+        System.arraycopy(pitch, 0, prevPitch, 0, size);
+    }
+
+    private void grow(int capacity) {
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        posZ = Arrays.copyOf(posZ, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        prevZ = Arrays.copyOf(prevZ, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        velZ = Arrays.copyOf(velZ, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        height = Arrays.copyOf(height, capacity);
+        yaw = Arrays.copyOf(yaw, capacity);
+        pitch = Arrays.copyOf(pitch, capacity);
+        prevYaw = Arrays.copyOf(prevYaw, capacity);
+        prevPitch = Arrays.copyOf(prevPitch, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
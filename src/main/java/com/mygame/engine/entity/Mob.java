@@ -0,0 +1,17 @@
+package com.mygame.engine.entity;
+
+import com.mygame.world.VoxelQuery;
+
+// Простейшая сущность: только физика, без поведения
+public class Mob extends Entity {
+    public Mob(EntityStore store, float x, float y, float z, float radius, float height) {
+        super(store);
+        setPosition(x, y, z);
+        setBounds(radius, height);
+    }
+
+    @Override
+    public void update(float deltaTime, VoxelQuery voxels) {
+        physicsSystem.update(deltaTime, store, id, voxels);
+    }
+}
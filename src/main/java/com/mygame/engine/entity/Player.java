@@ -1,120 +1,77 @@
 package com.mygame.engine.entity;
 
-import com.mygame.engine.graphics.Renderer;
-import com.mygame.world.block.Block;
-import com.mygame.world.chunk.Chunk;
+import com.mygame.world.RaycastHit;
+import com.mygame.world.VoxelQuery;
 import com.mygame.world.World;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.joml.Vector3f;
 
-import java.util.List;
-
 @Getter
 public class Player extends Entity {
     private static final float REACH_DISTANCE = 2.0f;
     private final float mouseSensitivity = 0.1f;
     private final float moveSpeed = 3.0f;
     private final float jumpStrength = 4f;
-
-    public Player(Vector3f startPosition) {
-        this.position.set(startPosition);
-        this.height = 0.9f;
-        this.radius = 0.18f;
+    // Переиспользуется каждым ударом
+    private final RaycastHit target = new RaycastHit();
+
+    // Рабочие векторы удара: луч строится без выделений
+    @Getter(AccessLevel.NONE)
+    private final Vector3f eye = new Vector3f();
+    @Getter(AccessLevel.NONE)
+    private final Vector3f look = new Vector3f();
+
+    public Player(EntityStore store, Vector3f startPosition) {
+        super(store);
+        setPosition(startPosition.x, startPosition.y, startPosition.z);
+        setBounds(0.18f, 0.9f);
     }
 
     public void rotate(float xOffset, float yOffset) {
         xOffset *= mouseSensitivity;
         yOffset *= mouseSensitivity;
 
-        yaw += xOffset;
-        pitch += yOffset;
+        float yaw = getYaw() + xOffset;
+        float pitch = getPitch() + yOffset;
 
         if (pitch > 89f) pitch = 89f;
         if (pitch < -89f) pitch = -89f;
+        setRotation(yaw, pitch);
     }
 
-    public Vector3f frontXZ() {
-        return new Vector3f(
-                (float) Math.cos(Math.toRadians(yaw)),
+    public Vector3f frontXZ(Vector3f dest) {
+        return dest.set(
+                (float) Math.cos(Math.toRadians(getYaw())),
                 0,
-                (float) Math.sin(Math.toRadians(yaw))
+                (float) Math.sin(Math.toRadians(getYaw()))
         ).normalize();
     }
 
-    public Vector3f rightXZ() {
-        return new Vector3f(frontXZ()).cross(0, 1, 0).normalize();
+    public Vector3f rightXZ(Vector3f dest) {
+        return frontXZ(dest).cross(0, 1, 0).normalize();
     }
 
-    public Vector3f getEyePosition() {
-        return new Vector3f(
-                position.x,
-                position.y + height - 0.1f,
-                position.z
-        );
-    }
-
-    @Override
-    public void update(float deltaTime, List<Block> nearbyBlocks) {
-        physicsSystem.update(deltaTime, this, nearbyBlocks);
-        updateVectors();
+    public Vector3f getEyePosition(Vector3f dest) {
+        return dest.set(getX(), getY() + getHeight() - 0.1f, getZ());
     }
 
     @Override
-    public void render(Renderer renderer, Vector3f renderPos) {
-        renderer.renderPlayer(radius, height, yaw, renderPos);
+    public void update(float deltaTime, VoxelQuery voxels) {
+        physicsSystem.update(deltaTime, store, id, voxels);
     }
 
-    private void updateVectors() {
-        front.x = (float) Math.cos(Math.toRadians(yaw)) * (float) Math.cos(Math.toRadians(pitch));
-        front.y = (float) Math.sin(Math.toRadians(pitch));
-        front.z = (float) Math.sin(Math.toRadians(yaw)) * (float) Math.cos(Math.toRadians(pitch));
-        front.normalize();
-
-        right.set(front).cross(up).normalize();
-    }
-
-    private Block getTargetBlock(World world) {
-        Vector3f origin = getEyePosition();
-        Vector3f direction = new Vector3f(front).normalize();
-
-        float step = 0.05f;
-
-        for (float t = 0; t < REACH_DISTANCE; t += step) {
-            Vector3f pos = new Vector3f(origin).fma(t, direction);
-
-            List<Block> nearby = world.getNearbyBlocks(pos);
-            for (Block block : nearby) {
-                Vector3f bp = block.getPosition();
-                float half = Chunk.BLOCK_SIZE / 2f;
-
-                boolean inside =
-                        pos.x >= bp.x - half && pos.x <= bp.x + half &&
-                                pos.y >= bp.y - half && pos.y <= bp.y + half &&
-                                pos.z >= bp.z - half && pos.z <= bp.z + half;
-
-                if (inside) {
-                    return block; // первый по лучу — правильный
-                }
-            }
-        }
-
-        return null;
-    }
-
-
-
     public void punchRightHand(World world) {
-        Block block = getTargetBlock(world);
-        if (block != null) {
-            world.destroyBlock(block);
+        if (world.raycast(getEyePosition(eye), getFront(look), REACH_DISTANCE, target)) {
+            world.destroyBlockAt(target.getX(), target.getY(), target.getZ());
         }
     }
 
     public void jump() {
-        if (!onGround) {
+        if (!isOnGround()) {
             return;
         }
-        velocity.y = jumpStrength;
-        onGround = false;
+        store.getVelY()[id] = jumpStrength;
+        setOnGround(false);
     }
 }
@@ -0,0 +1,123 @@
+package com.mygame.engine.graphics;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Аллокатор диапазонов внутри одного большого буфера на списке свободных блоков.
+// Ничего не знает про OpenGL, единицы измерения задаёт вызывающий (у нас - вершины).
+public class BufferAllocator {
+    // Размеры округляются до гранулы, чтобы мелкие хвосты не дробили свободное место
+    private final int granularity;
+    // Свободные блоки: смещение -> размер, соседние блоки всегда слиты
+    private final TreeMap<Integer, Integer> freeBlocks = new TreeMap<>();
+    private final Map<Integer, Integer> allocations = new HashMap<>();
+    @Getter
+    private int capacity;
+    @Getter
+    private int used;
+
+    public BufferAllocator(int capacity, int granularity) {
+        this.capacity = capacity;
+        this.granularity = granularity;
+        if (capacity > 0) {
+            freeBlocks.put(0, capacity);
+        }
+    }
+
+    public int roundUp(int size) {
+        return (size + granularity - 1) / granularity * granularity;
+    }
+
+    // Возвращает смещение выделенного диапазона или -1, если места нет
+    public int allocate(int size) {
+        int rounded = roundUp(Math.max(size, 1));
+        for (Map.Entry<Integer, Integer> block : freeBlocks.entrySet()) {
+            if (block.getValue() < rounded) continue;
+
+            int offset = block.getKey();
+            int rest = block.getValue() - rounded;
+            freeBlocks.remove(offset);
+            if (rest > 0) {
+                freeBlocks.put(offset + rounded, rest);
+            }
+            allocations.put(offset, rounded);
+            used += rounded;
+            return offset;
+        }
+        return -1;
+    }
+
+    public int sizeOf(int offset) {
+        Integer size = allocations.get(offset);
+        return size != null ? size : 0;
+    }
+
+    public void free(int offset) {
+        Integer size = allocations.remove(offset);
+        if (size == null) {
+            throw new IllegalArgumentException("Диапазон не выделен: " + offset);
+        }
+        used -= size;
+
+        int start = offset;
+        int length = size;
+
+        Map.Entry<Integer, Integer> before = freeBlocks.floorEntry(offset);
+        if (before != null && before.getKey() + before.getValue() == offset) {
+            start = before.getKey();
+            length += before.getValue();
+            freeBlocks.remove(before.getKey());
+        }
+        Integer after = freeBlocks.get(offset + size);
+        if (after != null) {
+            length += after;
+            freeBlocks.remove(offset + size);
+        }
+        freeBlocks.put(start, length);
+    }
+
+    // Увеличивает ёмкость, новое место добавляется в конец
+    public void grow(int newCapacity) {
+        if (newCapacity <= capacity) return;
+
+        int start = capacity;
+        int length = newCapacity - capacity;
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == capacity) {
+            start = last.getKey();
+            length += last.getValue();
+        }
+        freeBlocks.put(start, length);
+        capacity = newCapacity;
+    }
+
+    public int getFree() {
+        return capacity - used;
+    }
+
+    public int getFreeBlockCount() {
+        return freeBlocks.size();
+    }
+
+    public int getAllocationCount() {
+        return allocations.size();
+    }
+
+    public int getLargestFreeBlock() {
+        int largest = 0;
+        for (int size : freeBlocks.values()) {
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+
+    // 0 - всё свободное место одним куском, ближе к 1 - место раздроблено
+    public float getFragmentation() {
+        int free = getFree();
+        if (free == 0) return 0f;
+        return 1f - (float) getLargestFreeBlock() / free;
+    }
+}
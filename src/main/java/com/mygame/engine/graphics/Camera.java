@@ -1,6 +1,5 @@
 package com.mygame.engine.graphics;
 
-import com.mygame.engine.entity.Player;
 import lombok.Getter;
 import lombok.Setter;
 import org.joml.Matrix4f;
@@ -20,9 +19,9 @@ public class Camera {
 
     private final Matrix4f viewMatrix = new Matrix4f();
 
-    public void update(Player player) {
-        yaw = player.getYaw();
-        pitch = player.getPitch();
+    public void update(float yaw, float pitch) {
+        this.yaw = yaw;
+        this.pitch = pitch;
         updateVectors();
     }
 
@@ -0,0 +1,43 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+
+// Uniform-буфер камеры (std140): две mat4 - проекция и вид. Обновляется один раз за кадр
+// и виден всем программам, у которых блок Camera привязан к BINDING.
+public class CameraUniforms {
+    public static final String BLOCK_NAME = "Camera";
+    public static final int BINDING = 0;
+    private static final int FLOATS = 16 * 2;
+
+    private final GlBackend gl = Gl.get();
+    private final int uboID;
+    private final FloatBuffer data = BufferUtils.createFloatBuffer(FLOATS);
+
+    public CameraUniforms() {
+        uboID = gl.genBuffers();
+        gl.bindBuffer(GL_UNIFORM_BUFFER, uboID);
+        gl.bufferData(GL_UNIFORM_BUFFER, (long) FLOATS * Float.BYTES, GL_DYNAMIC_DRAW);
+        gl.bindBuffer(GL_UNIFORM_BUFFER, 0);
+        gl.bindBufferBase(GL_UNIFORM_BUFFER, BINDING, uboID);
+    }
+
+    public void update(Matrix4f projection, Matrix4f view) {
+        projection.get(0, data);
+        view.get(16, data);
+        gl.bindBuffer(GL_UNIFORM_BUFFER, uboID);
+        gl.bufferSubData(GL_UNIFORM_BUFFER, 0, data);
+        gl.bindBuffer(GL_UNIFORM_BUFFER, 0);
+    }
+
+    public void cleanup() {
+        gl.deleteBuffers(uboID);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkMeshUpload;
+import lombok.Getter;
+
+// То, что рендер знает о загруженном чанке: диапазоны секций, графы видимости и AABB
+// из последнего задания на загрузку. Живёт только в потоке рендера.
+@Getter
+public class ChunkRenderState {
+    private final Chunk chunk;
+    private final int chunkX;
+    private final int chunkZ;
+    private final int vertexCount;
+    private final int[] sectionStarts;
+    private final long[] sectionVisibility;
+    private final float minX, minY, minZ;
+    private final float maxX, maxY, maxZ;
+    // Заполняются отсечением в текущем кадре: маска видимых секций и квадрат расстояния до камеры
+    int visibleSections;
+    float cameraDistance;
+
+    public ChunkRenderState(ChunkMeshUpload upload) {
+        this.chunk = upload.chunk();
+        this.chunkX = chunk.getChunkX();
+        this.chunkZ = chunk.getChunkZ();
+        this.vertexCount = upload.vertexCount();
+        this.sectionStarts = upload.sectionStarts();
+        this.sectionVisibility = upload.sectionVisibility();
+        this.minX = upload.minX();
+        this.minY = upload.minY();
+        this.minZ = upload.minZ();
+        this.maxX = upload.maxX();
+        this.maxY = upload.maxY();
+        this.maxZ = upload.maxZ();
+    }
+
+    public long getSectionVisibility(int section) {
+        return sectionVisibility[section];
+    }
+}
@@ -0,0 +1,70 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.graphics.backend.Gl;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+
+// Кэш привязок OpenGL: программа, VAO и текстуры по блокам. Повторная привязка того же
+// объекта не доходит до драйвера. Все привязки этих типов должны идти через этот класс,
+// иначе кэш разойдётся с реальным состоянием - тогда нужен invalidate().
+public final class GlState {
+    private static final int UNKNOWN = -1;
+    private static final int MAX_UNITS = 16;
+
+    private static int program = UNKNOWN;
+    private static int vertexArray = UNKNOWN;
+    private static int activeUnit = UNKNOWN;
+    // Отдельно для GL_TEXTURE_2D и GL_TEXTURE_2D_ARRAY: у каждого блока свои привязки на каждую цель
+    private static final int[] textures2D = new int[MAX_UNITS];
+    private static final int[] texturesArray = new int[MAX_UNITS];
+
+    static {
+        invalidate();
+    }
+
+    private GlState() {
+    }
+
+    public static void useProgram(int id) {
+        if (program != id) {
+            Gl.get().useProgram(id);
+            program = id;
+        }
+    }
+
+    public static void bindVertexArray(int id) {
+        if (vertexArray != id) {
+            Gl.get().bindVertexArray(id);
+            vertexArray = id;
+        }
+    }
+
+    public static void bindTexture(int unit, int target, int id) {
+        int[] bound = target == GL_TEXTURE_2D_ARRAY ? texturesArray : textures2D;
+        if (bound[unit] == id) return;
+
+        if (activeUnit != unit) {
+            Gl.get().activeTexture(GL_TEXTURE0 + unit);
+            activeUnit = unit;
+        }
+        Gl.get().bindTexture(target, id);
+        bound[unit] = id;
+    }
+
+    // Привязка на текущий активный блок - для загрузки данных в текстуру
+    public static void bindTexture(int target, int id) {
+        bindTexture(activeUnit == UNKNOWN ? 0 : activeUnit, target, id);
+    }
+
+    // Сбрасывает кэш, если кто-то менял состояние в обход GlState
+    public static void invalidate() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        activeUnit = UNKNOWN;
+        Arrays.fill(textures2D, UNKNOWN);
+        Arrays.fill(texturesArray, UNKNOWN);
+    }
+}
@@ -0,0 +1,66 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+import com.mygame.engine.profiler.Profiler;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+
+// GPU-время областей кадра через запросы GL_TIME_ELAPSED. Результат кадра читается через
+// FRAMES_IN_FLIGHT - 1 кадров, когда GPU его уже наверняка посчитал, поэтому ожидания нет.
+// Запросы GL_TIME_ELAPSED не вкладываются друг в друга - области идут подряд.
+public class GpuProfiler {
+    private static final int FRAMES_IN_FLIGHT = 4;
+    private static final int MAX_SCOPES = 8;
+
+    private final GlBackend gl = Gl.get();
+    private final Profiler profiler = Profiler.getInstance();
+    private final int[][] queries = new int[FRAMES_IN_FLIGHT][MAX_SCOPES];
+    private final String[][] names = new String[FRAMES_IN_FLIGHT][MAX_SCOPES];
+    private final long[][] cpuStarts = new long[FRAMES_IN_FLIGHT][MAX_SCOPES];
+    private final int[] counts = new int[FRAMES_IN_FLIGHT];
+    private int frame;
+    private boolean open;
+
+    public GpuProfiler() {
+        for (int[] frameQueries : queries) {
+            gl.genQueries(frameQueries);
+        }
+    }
+
+    // Забирает готовые результаты самого старого кадра и отдаёт его слот новому
+    public void beginFrame() {
+        frame = (frame + 1) % FRAMES_IN_FLIGHT;
+        for (int i = 0; i < counts[frame]; i++) {
+            int query = queries[frame][i];
+            // Не готов - пропускаем, а не ждём
+            if (gl.getQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) continue;
+            profiler.recordGpu(names[frame][i], cpuStarts[frame][i], gl.getQueryObjecti64(query, GL_QUERY_RESULT));
+        }
+        counts[frame] = 0;
+    }
+
+    public void begin(String name) {
+        int index = counts[frame];
+        if (open || index == MAX_SCOPES) return;
+
+        names[frame][index] = name;
+        cpuStarts[frame][index] = System.nanoTime();
+        gl.beginQuery(GL_TIME_ELAPSED, queries[frame][index]);
+        open = true;
+    }
+
+    public void end() {
+        if (!open) return;
+        gl.endQuery(GL_TIME_ELAPSED);
+        counts[frame]++;
+        open = false;
+    }
+
+    public void cleanup() {
+        for (int[] frameQueries : queries) {
+            gl.deleteQueries(frameQueries);
+        }
+    }
+}
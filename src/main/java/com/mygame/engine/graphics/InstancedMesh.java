@@ -0,0 +1,94 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+import lombok.Getter;
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL15.*;
+
+// Модель, загруженная один раз, и потоковый буфер матриц экземпляров.
+// За кадр копятся трансформы через add, затем все экземпляры рисуются одним вызовом.
+public class InstancedMesh {
+    // mat4 экземпляра занимает четыре атрибута подряд, начиная с этого
+    public static final int INSTANCE_ATTRIBUTE = 4;
+    private static final int INSTANCE_FLOATS = 16;
+
+    private final GlBackend gl = Gl.get();
+    private final int vaoID;
+    private final int vboID;
+    private final int instanceVboID;
+    private final int vertexCount;
+    private FloatBuffer instances = BufferUtils.createFloatBuffer(INSTANCE_FLOATS * 64);
+    @Getter
+    private int instanceCount;
+
+    public InstancedMesh(float[] vertices) {
+        vertexCount = vertices.length / 9;
+
+        vaoID = gl.genVertexArrays();
+        GlState.bindVertexArray(vaoID);
+
+        vboID = gl.genBuffers();
+        gl.bindBuffer(GL_ARRAY_BUFFER, vboID);
+        gl.bufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+        VertexArray.setupAttributes();
+
+        instanceVboID = gl.genBuffers();
+        gl.bindBuffer(GL_ARRAY_BUFFER, instanceVboID);
+        gl.bufferData(GL_ARRAY_BUFFER, (long) instances.capacity() * Float.BYTES, GL_STREAM_DRAW);
+        for (int column = 0; column < 4; column++) {
+            int attribute = INSTANCE_ATTRIBUTE + column;
+            gl.vertexAttribPointer(attribute, 4, GL_FLOAT, false, INSTANCE_FLOATS * Float.BYTES,
+                    (long) column * 4 * Float.BYTES);
+            gl.enableVertexAttribArray(attribute);
+            gl.vertexAttribDivisor(attribute, 1);
+        }
+
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+        GlState.bindVertexArray(0);
+    }
+
+    public void begin() {
+        instances.clear();
+        instanceCount = 0;
+    }
+
+    public void add(Matrix4f transform) {
+        if (instances.remaining() < INSTANCE_FLOATS) {
+            FloatBuffer bigger = BufferUtils.createFloatBuffer(instances.capacity() * 2);
+            instances.flip();
+            bigger.put(instances);
+            instances = bigger;
+        }
+        transform.get(instances.position(), instances);
+        instances.position(instances.position() + INSTANCE_FLOATS);
+        instanceCount++;
+    }
+
+    public void draw() {
+        if (instanceCount == 0) return;
+
+        instances.flip();
+        gl.bindBuffer(GL_ARRAY_BUFFER, instanceVboID);
+        // Осиротевшее хранилище прошлого кадра драйвер освободит сам, ожидания GPU нет
+        gl.bufferData(GL_ARRAY_BUFFER, (long) instances.capacity() * Float.BYTES, GL_STREAM_DRAW);
+        gl.bufferSubData(GL_ARRAY_BUFFER, 0, instances);
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+
+        GlState.bindVertexArray(vaoID);
+        gl.drawArraysInstanced(GL_TRIANGLES, 0, vertexCount, instanceCount);
+    }
+
+    public void cleanup() {
+        GlState.bindVertexArray(0);
+        gl.deleteVertexArrays(vaoID);
+        gl.deleteBuffers(vboID);
+        gl.deleteBuffers(instanceVboID);
+    }
+}
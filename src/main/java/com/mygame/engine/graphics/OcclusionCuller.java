@@ -0,0 +1,130 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkMeshEmitter;
+import com.mygame.world.chunk.ChunkPos;
+import com.mygame.world.chunk.SectionVisibility;
+import lombok.Getter;
+import org.joml.FrustumIntersection;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Отсечение перекрытых секций обходом в ширину от секции камеры по графам видимости.
+// В секцию можно войти через грань b, если из грани входа a она видна насквозь (a -> b),
+// и нельзя развернуться против уже пройденного направления - иначе обход огибает стены.
+public class OcclusionCuller {
+    private static final float SECTION_SIZE = Chunk.SECTION_HEIGHT * Chunk.BLOCK_SIZE;
+    private static final float CHUNK_SIZE = Chunk.SIZE * Chunk.BLOCK_SIZE;
+    // Центр блока (0, 0, 0) лежит в начале координат, поэтому сетка сдвинута на полблока
+    private static final float ORIGIN = -Chunk.BLOCK_SIZE / 2f;
+    // Над чанком лежит виртуальный слой из одного воздуха: через него видно поверх гор
+    private static final int SKY = Chunk.SECTIONS;
+    private static final int NO_FACE = -1;
+    private static final int[][] STEPS = new int[SectionVisibility.FACES][];
+
+    static {
+        STEPS[ChunkMeshEmitter.FACE_TOP] = new int[]{0, 1, 0};
+        STEPS[ChunkMeshEmitter.FACE_BOTTOM] = new int[]{0, -1, 0};
+        STEPS[ChunkMeshEmitter.FACE_FRONT] = new int[]{0, 0, 1};
+        STEPS[ChunkMeshEmitter.FACE_BACK] = new int[]{0, 0, -1};
+        STEPS[ChunkMeshEmitter.FACE_LEFT] = new int[]{-1, 0, 0};
+        STEPS[ChunkMeshEmitter.FACE_RIGHT] = new int[]{1, 0, 0};
+    }
+
+    // Чанк -> маска достигнутых секций (бит SKY - виртуальный слой)
+    private final Map<ChunkRenderState, Integer> visibleSections = new HashMap<>();
+    // Очередь обхода: координаты секции, грань входа и маска пройденных направлений
+    private ChunkRenderState[] queueChunks = new ChunkRenderState[256];
+    private int[] queueNodes = new int[256 * 5];
+    @Getter
+    private boolean active;
+
+    // Возвращает false, если камера вне сетки секций - тогда отсечение по перекрытию не применяется
+    public boolean cull(Map<ChunkPos, ChunkRenderState> grid, Vector3f camera, FrustumIntersection frustum) {
+        visibleSections.clear();
+        active = false;
+
+        int cx = (int) Math.floor((camera.x - ORIGIN) / CHUNK_SIZE);
+        int cz = (int) Math.floor((camera.z - ORIGIN) / CHUNK_SIZE);
+        int sy = Math.min(SKY, (int) Math.floor((camera.y - ORIGIN) / SECTION_SIZE));
+        ChunkRenderState start = grid.get(new ChunkPos(cx, cz));
+        if (start == null || sy < 0) {
+            return false;
+        }
+
+        int head = 0;
+        int tail = 0;
+        visibleSections.put(start, 1 << sy);
+        tail = enqueue(tail, start, cx, sy, cz, NO_FACE, 0);
+
+        while (head < tail) {
+            ChunkRenderState chunk = queueChunks[head];
+            int base = head * 5;
+            int x = queueNodes[base];
+            int y = queueNodes[base + 1];
+            int z = queueNodes[base + 2];
+            int entry = queueNodes[base + 3];
+            int directions = queueNodes[base + 4];
+            head++;
+
+            long visibility = y == SKY ? SectionVisibility.ALL : chunk.getSectionVisibility(y);
+            for (int face = 0; face < SectionVisibility.FACES; face++) {
+                if ((directions & (1 << SectionVisibility.opposite(face))) != 0) continue;
+                if (entry != NO_FACE && !SectionVisibility.connects(visibility, entry, face)) continue;
+
+                int[] step = STEPS[face];
+                int nx = x + step[0];
+                int ny = y + step[1];
+                int nz = z + step[2];
+                if (ny < 0 || ny > SKY) continue;
+
+                ChunkRenderState neighbor = step[1] != 0 ? chunk : grid.get(new ChunkPos(nx, nz));
+                if (neighbor == null) continue;
+
+                int reached = visibleSections.getOrDefault(neighbor, 0);
+                if ((reached & (1 << ny)) != 0) continue;
+
+                float minX = ORIGIN + nx * CHUNK_SIZE;
+                float minY = ORIGIN + ny * SECTION_SIZE;
+                float minZ = ORIGIN + nz * CHUNK_SIZE;
+                if (!frustum.testAab(minX, minY, minZ, minX + CHUNK_SIZE, minY + SECTION_SIZE, minZ + CHUNK_SIZE)) {
+                    continue;
+                }
+
+                visibleSections.put(neighbor, reached | (1 << ny));
+                tail = enqueue(tail, neighbor, nx, ny, nz, SectionVisibility.opposite(face), directions | (1 << face));
+            }
+        }
+
+        // Не держим ссылки на выгруженные чанки до следующего кадра
+        Arrays.fill(queueChunks, 0, tail, null);
+        active = true;
+        return true;
+    }
+
+    // Маска видимых секций чанка за последний вызов cull, бит i - секция i
+    public int getVisibleSections(ChunkRenderState chunk) {
+        if (!active) {
+            return (1 << Chunk.SECTIONS) - 1;
+        }
+        return visibleSections.getOrDefault(chunk, 0) & ((1 << Chunk.SECTIONS) - 1);
+    }
+
+    private int enqueue(int tail, ChunkRenderState chunk, int x, int y, int z, int entry, int directions) {
+        if (tail == queueChunks.length) {
+            queueChunks = Arrays.copyOf(queueChunks, tail * 2);
+            queueNodes = Arrays.copyOf(queueNodes, tail * 2 * 5);
+        }
+        queueChunks[tail] = chunk;
+        int base = tail * 5;
+        queueNodes[base] = x;
+        queueNodes[base + 1] = y;
+        queueNodes[base + 2] = z;
+        queueNodes[base + 3] = entry;
+        queueNodes[base + 4] = directions;
+        return tail + 1;
+    }
+}
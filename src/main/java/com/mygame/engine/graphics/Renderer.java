@@ -1,14 +1,24 @@
 package com.mygame.engine.graphics;
 
 import com.mygame.engine.Window;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
 import com.mygame.engine.graphics.shader.Shader;
 import com.mygame.engine.graphics.shader.ShaderManager;
 import com.mygame.engine.graphics.textures.TextureManager;
+import com.mygame.engine.profiler.FrameTimeStats;
+import com.mygame.engine.profiler.Profiler;
 import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkMeshEmitter;
+import com.mygame.world.chunk.ChunkMeshUpload;
+import com.mygame.world.chunk.ChunkPos;
+import lombok.Getter;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,187 +26,395 @@ import java.util.Map;
 import static org.lwjgl.opengl.GL11.*;
 
 public class Renderer {
-    private final Shader shader;
+    private static final int BLOCK_TEXTURE_UNIT = 0;
+    private static final int HUD_TEXTURE_UNIT = 1;
+    // Ближние чанки первыми: их глубина отбрасывает фрагменты дальних до шейдера
+    private static final Comparator<ChunkRenderState> FRONT_TO_BACK =
+            Comparator.comparingDouble(state -> state.cameraDistance);
+
+    private final GlBackend gl = Gl.get();
+    private final Shader opaqueShader;
+    private final Shader cutoutShader;
+    private final Shader hudShader;
     private final Projection projection;
     private final Matrix4f modelMatrix = new Matrix4f();
-    private final Map<Chunk, VertexArray> chunkVAOs = new HashMap<>();
+    private final Matrix4f entityModel = new Matrix4f();
+    private final CameraUniforms cameraUniforms;
+    private final Map<Chunk, ChunkRenderState> chunks = new HashMap<>();
+    // Те же чанки по координатам - для обхода соседей при отсечении перекрытых секций
+    private final Map<ChunkPos, ChunkRenderState> chunkGrid = new HashMap<>();
+    private final OcclusionCuller occlusionCuller = new OcclusionCuller();
+    private final List<ChunkRenderState> visibleChunks = new ArrayList<>();
+    @Getter
+    private final UploadScheduler uploadScheduler = new UploadScheduler();
+    private final Vector3f cameraPosition = new Vector3f();
+    private final Matrix4f projectionView = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    // Статистика отсечения за последний кадр
+    @Getter
+    private int drawnChunks;
+    @Getter
+    private int culledChunks;
+    @Getter
+    private int occludedChunks;
+    @Getter
+    private int occludedSections;
+    @Getter
+    private final TerrainBuffer terrainBuffer;
     private final TextureManager textureManager = new TextureManager();
     private final Crosshair crosshair;
+    private final Shader entityShader;
+    private final InstancedMesh playerModel;
+    private final SpriteBatch spriteBatch;
+    private final Profiler profiler = Profiler.getInstance();
+    private final GpuProfiler gpuProfiler;
 
     public Renderer(Window window) {
-        shader = new Shader("src/main/resources/shaders/basic.vert",
+        this(window.getWidth(), window.getHeight());
+    }
+
+    // Без окна - для прогонов на RecordingGlBackend
+    public Renderer(int width, int height) {
+        opaqueShader = new Shader("src/main/resources/shaders/basic.vert",
+                "src/main/resources/shaders/opaque.frag");
+        ShaderManager.getInstance().addShader("basic", opaqueShader);
+        cutoutShader = new Shader("src/main/resources/shaders/basic.vert",
                 "src/main/resources/shaders/multi_texture.frag");
-        ShaderManager.getInstance().addShader("basic", shader);
+        ShaderManager.getInstance().addShader("cutout", cutoutShader);
+        hudShader = new Shader("src/main/resources/shaders/hud.vert",
+                "src/main/resources/shaders/hud.frag");
+        ShaderManager.getInstance().addShader("hud", hudShader);
+        entityShader = new Shader("src/main/resources/shaders/entity.vert",
+                "src/main/resources/shaders/entity.frag");
+        ShaderManager.getInstance().addShader("entity", entityShader);
+
+        // Сэмплеры и привязка блока камеры - состояние программы, задаются один раз
+        cameraUniforms = new CameraUniforms();
+        opaqueShader.bindUniformBlock(CameraUniforms.BLOCK_NAME, CameraUniforms.BINDING);
+        cutoutShader.bindUniformBlock(CameraUniforms.BLOCK_NAME, CameraUniforms.BINDING);
+        entityShader.bindUniformBlock(CameraUniforms.BLOCK_NAME, CameraUniforms.BINDING);
+        opaqueShader.bind();
+        opaqueShader.setUniform("blockTextures", BLOCK_TEXTURE_UNIT);
+        opaqueShader.setUniform("uModel", modelMatrix.identity());
+        cutoutShader.bind();
+        cutoutShader.setUniform("blockTextures", BLOCK_TEXTURE_UNIT);
+        cutoutShader.setUniform("uModel", modelMatrix);
+        hudShader.bind();
+        hudShader.setUniform("hudTexture", HUD_TEXTURE_UNIT);
+
         projection = new Projection(60.0f, 0.1f, 100.0f);
-        crosshair = new Crosshair(window.getHeight(), window.getWidth());
+        crosshair = new Crosshair(height, width);
+        playerModel = new InstancedMesh(createPlayerVertices());
+        spriteBatch = new SpriteBatch();
+        terrainBuffer = new TerrainBuffer();
+        gpuProfiler = new GpuProfiler();
     }
 
     public void beginScene(Camera camera, int width, int height) {
-        glClearColor(0.2f, 0.3f, 0.4f, 1.0f);
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        glEnable(GL_DEPTH_TEST);
+        gpuProfiler.beginFrame();
+        gl.clearColor(0.2f, 0.3f, 0.4f, 1.0f);
+        gl.clear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        gl.enable(GL_DEPTH_TEST);
 
-        shader.bind();
         projection.update(width, height);
 
-        shader.setUniform("uProjection", projection.getProjectionMatrix());
-        shader.setUniform("uView", camera.getViewMatrix());
-        shader.setUniform("uModel", modelMatrix.identity());
-
-        textureManager.bindTexture("dirt_podzol_top", 0);
-        textureManager.bindTexture("dirt_podzol_side", 1);
-        textureManager.bindTexture("dirt", 2);
-        textureManager.bindTexture("stone", 3);
-        textureManager.bindTexture("oak_top", 4);
-        textureManager.bindTexture("oak_side", 5);
-        textureManager.bindTexture("cross", 6);
-        textureManager.bindTexture("coal_ore", 7);
-        textureManager.bindTexture("iron_ore", 8);
-        textureManager.bindTexture("bedrock", 9);
-        textureManager.bindTexture("leaves_oak", 10);
-
-        int[] texUnits = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
-        shader.setUniform("textures", texUnits);
-    }
-
-    public void uploadChunk(Chunk chunk) {
-        if (chunk.getMesh() != null && chunk.getMesh().getVertices() != null) {
-            VertexArray vao = new VertexArray(chunk.getMesh().getVertices());
-            chunkVAOs.put(chunk, vao);
+        cameraPosition.set(camera.getPosition());
+        Matrix4f view = camera.getViewMatrix();
+        cameraUniforms.update(projection.getProjectionMatrix(), view);
+        frustum.set(projectionView.set(projection.getProjectionMatrix()).mul(view));
+
+        // Все текстуры блоков - один массив на нулевом блоке, прицел на первом
+        textureManager.bindBlockTextures(BLOCK_TEXTURE_UNIT);
+    }
+
+    // Загрузка откладывается до processUploads и идёт в пределах бюджета кадра
+    public void queueUpload(ChunkMeshUpload upload) {
+        uploadScheduler.submit(upload);
+    }
+
+    // После beginScene: приоритет загрузок считается от камеры текущего кадра
+    public void processUploads() {
+        uploadScheduler.run(this::uploadChunk, cameraPosition, frustum);
+    }
+
+    private void uploadChunk(ChunkMeshUpload upload) {
+        Chunk chunk = upload.chunk();
+        terrainBuffer.upload(chunk, upload.vertices());
+
+        ChunkRenderState state = new ChunkRenderState(upload);
+        chunks.put(chunk, state);
+        chunkGrid.put(new ChunkPos(state.getChunkX(), state.getChunkZ()), state);
+    }
+
+    public void unloadChunk(Chunk chunk) {
+        uploadScheduler.cancel(chunk);
+        ChunkRenderState state = chunks.remove(chunk);
+        if (state != null) {
+            chunkGrid.remove(new ChunkPos(state.getChunkX(), state.getChunkZ()), state);
         }
+        terrainBuffer.remove(chunk);
     }
 
     public void renderChunk() {
-        for (Map.Entry<Chunk, VertexArray> entry : chunkVAOs.entrySet()) {
-            Chunk chunk = entry.getKey();
-            VertexArray vao = entry.getValue();
-
-            if (chunk.getMesh().isDirty()) {
-                vao.cleanup(); // удаляем старый VAO
-                VertexArray newVao = new VertexArray(chunk.getMesh().getVertices());
-                entry.setValue(newVao); // обновляем VAO
-                chunk.getMesh().markDirty(); // помечаем чанк как не dirty
+        profiler.begin("draw");
+        profiler.begin("cull");
+        drawnChunks = 0;
+        culledChunks = 0;
+        occludedChunks = 0;
+        occludedSections = 0;
+        visibleChunks.clear();
+        occlusionCuller.cull(chunkGrid, cameraPosition, frustum);
+        for (ChunkRenderState state : chunks.values()) {
+            if (state.getVertexCount() == 0) continue;
+
+            if (!frustum.testAab(state.getMinX(), state.getMinY(), state.getMinZ(),
+                    state.getMaxX(), state.getMaxY(), state.getMaxZ())) {
+                culledChunks++;
+                continue;
             }
-            vao.render();
+
+            int visible = occlusionCuller.getVisibleSections(state);
+            if (visible == 0) {
+                occludedChunks++;
+                continue;
+            }
+            drawnChunks++;
+            countOccludedSections(state.getSectionStarts(), visible);
+            state.visibleSections = visible;
+            float dx = (state.getMinX() + state.getMaxX()) * 0.5f - cameraPosition.x;
+            float dy = (state.getMinY() + state.getMaxY()) * 0.5f - cameraPosition.y;
+            float dz = (state.getMinZ() + state.getMaxZ()) * 0.5f - cameraPosition.z;
+            state.cameraDistance = dx * dx + dy * dy + dz * dz;
+            visibleChunks.add(state);
         }
+        visibleChunks.sort(FRONT_TO_BACK);
+        profiler.end();
+
+        gpuProfiler.begin("terrain");
+        drawLayer(opaqueShader, ChunkMeshEmitter.LAYER_OPAQUE);
+        drawLayer(cutoutShader, ChunkMeshEmitter.LAYER_CUTOUT);
+        gpuProfiler.end();
+
+        gpuProfiler.begin("entities");
+        renderEntities();
+        gpuProfiler.end();
+
+        gpuProfiler.begin("hud");
         renderCrosshair();
+        renderProfilerOverlay();
+        gpuProfiler.end();
+        profiler.end();
     }
 
-    public void renderCrosshair() {
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-        shader.bind();
-        shader.setUniform("uProjection", new Matrix4f().identity());
-        shader.setUniform("uView", new Matrix4f().identity());
-        shader.setUniform("uModel", new Matrix4f().identity());
-        crosshair.render();
-        shader.unbind();
-        glDisable(GL_BLEND);
+    // Один слой всех видимых чанков в порядке visibleChunks - одним multi-draw вызовом
+    private void drawLayer(Shader layerShader, int layer) {
+        terrainBuffer.begin();
+        for (ChunkRenderState state : visibleChunks) {
+            addSectionDraws(state.getChunk(), state.getSectionStarts(), state.visibleSections, layer);
+        }
+        if (terrainBuffer.getDrawCount() == 0) return;
+        layerShader.bind();
+        terrainBuffer.draw();
     }
 
+    // Соседние видимые секции слоя лежат в буфере подряд, поэтому склеиваются в один вызов
+    private void addSectionDraws(Chunk chunk, int[] sectionStarts, int visible, int layer) {
+        int base = ChunkMeshEmitter.rangeIndex(layer, 0);
+        int section = 0;
+        while (section < Chunk.SECTIONS) {
+            if ((visible & (1 << section)) == 0) {
+                section++;
+                continue;
+            }
+            int first = section;
+            while (section < Chunk.SECTIONS && (visible & (1 << section)) != 0) {
+                section++;
+            }
+            int count = sectionStarts[base + section] - sectionStarts[base + first];
+            if (count > 0) {
+                terrainBuffer.addDraw(chunk, sectionStarts[base + first], count);
+            }
+        }
+    }
 
-    public void renderPlayer(float radius, float currentHeight, float yaw, Vector3f renderPos) {
-        float[] playerVertices = createPlayerVertices(radius, currentHeight);
-        VertexArray playerVAO = new VertexArray(playerVertices);
-
-        Matrix4f playerModel = new Matrix4f()
-                .translate(renderPos)
-                .rotate((float) Math.toRadians(-yaw), 0, 1, 0);
+    private void countOccludedSections(int[] sectionStarts, int visible) {
+        for (int section = 0; section < Chunk.SECTIONS; section++) {
+            if ((visible & (1 << section)) != 0) continue;
+            for (int layer = 0; layer < ChunkMeshEmitter.LAYERS; layer++) {
+                int range = ChunkMeshEmitter.rangeIndex(layer, section);
+                if (sectionStarts[range + 1] > sectionStarts[range]) {
+                    occludedSections++;
+                    break;
+                }
+            }
+        }
+    }
 
-        shader.setUniform("uModel", playerModel);
-        playerVAO.render();
-        playerVAO.cleanup();
+    public void renderEntities() {
+        entityShader.bind();
+        playerModel.draw();
+        playerModel.begin();
+    }
 
-        shader.setUniform("uModel", modelMatrix.identity());
+    public void renderCrosshair() {
+        gl.enable(GL_BLEND);
+        gl.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        hudShader.bind();
+        textureManager.bindTexture("cross", HUD_TEXTURE_UNIT);
+        spriteBatch.begin();
+        crosshair.submit(spriteBatch);
+        spriteBatch.flush();
+        gl.disable(GL_BLEND);
     }
 
-    private float[] createPlayerVertices(float radius, float height) {
-        float halfWidth = radius / 2;
-        float cubeHeight = height - radius * 2;
+    // Полосы времени: p50 и p99 кадра, затем области профайлера с отступом по вложенности.
+    // Полная ширина полосы - 33.3 мс, белая риска - бюджет 60 FPS.
+    private void renderProfilerOverlay() {
+        if (!profiler.isOverlayEnabled()) return;
+
+        final float left = -0.98f;
+        final float top = 0.95f;
+        final float rowHeight = 0.035f;
+        final float barHeight = 0.025f;
+        final float fullWidth = 0.6f;
+        final float fullMs = 1000f / 30f;
+
+        gl.enable(GL_BLEND);
+        hudShader.bind();
+        textureManager.bindTexture("white", HUD_TEXTURE_UNIT);
+        spriteBatch.begin();
+
+        float y = top;
+        FrameTimeStats frames = profiler.getFrameTimes();
+        float[] frameRows = {frames.percentile(0.5f), frames.percentile(0.99f)};
+        for (int i = 0; i < frameRows.length; i++) {
+            float width = Math.min(frameRows[i] / fullMs, 1f) * fullWidth;
+            spriteBatch.addQuad(left, y - barHeight, left + width, y, 0f, 0f, 1f, 1f,
+                    1f, i == 0 ? 1f : 0.4f, 0.2f);
+            y -= rowHeight;
+        }
+
+        for (Map.Entry<String, Profiler.ScopeStats> entry : profiler.getScopes().entrySet()) {
+            Profiler.ScopeStats stats = entry.getValue();
+            float indent = stats.getDepth() * 0.02f;
+            float width = Math.min(stats.getSmoothedMs() / fullMs, 1f) * fullWidth;
+            // Цвет по имени, чтобы полоса области не меняла цвет от кадра к кадру
+            int hash = entry.getKey().hashCode();
+            float r = stats.isGpu() ? 0.3f : 0.4f + (hash & 0xFF) / 425f;
+            float g = 0.4f + ((hash >> 8) & 0xFF) / 425f;
+            float b = stats.isGpu() ? 1f : 0.4f + ((hash >> 16) & 0xFF) / 425f;
+            spriteBatch.addQuad(left + indent, y - barHeight, left + indent + width, y, 0f, 0f, 1f, 1f, r, g, b);
+            y -= rowHeight;
+        }
+
+        float budget = left + (1000f / 60f) / fullMs * fullWidth;
+        spriteBatch.addQuad(budget - 0.002f, y, budget + 0.002f, top, 0f, 0f, 1f, 1f);
+        spriteBatch.flush();
+        gl.disable(GL_BLEND);
+    }
 
-        List<Float> verticesList = new ArrayList<>();
+    // Игрок не рисуется сразу, а добавляется экземпляром в батч модели; сам вызов - в renderEntities
+    public void renderPlayer(float radius, float currentHeight, float yaw, Vector3f renderPos) {
+        // Модель - единичный бокс, размеры игрока задаются масштабом экземпляра
+        entityModel.translation(renderPos)
+                .rotate((float) Math.toRadians(-yaw), 0, 1, 0)
+                .scale(radius, currentHeight - radius * 2, radius);
+        playerModel.add(entityModel);
+    }
 
-        addFaceWithWinding(verticesList,
-                new float[]{-halfWidth, cubeHeight, -halfWidth},
-                new float[]{halfWidth, cubeHeight, -halfWidth},
-                new float[]{halfWidth, cubeHeight, halfWidth},
-                new float[]{-halfWidth, cubeHeight, halfWidth},
+    // Бокс [-0.5, 0.5] x [0, 1] x [-0.5, 0.5], у каждой грани свой цвет
+    private static float[] createPlayerVertices() {
+        float h = 0.5f;
+        float[] vertices = new float[6 * 6 * 9];
+        int offset = 0;
+
+        offset = addFaceWithWinding(vertices, offset,
+                new float[]{-h, 1, -h},
+                new float[]{h, 1, -h},
+                new float[]{h, 1, h},
+                new float[]{-h, 1, h},
                 new float[]{1.0f, 0.0f, 1.0f}
         );
 
-        addFaceWithWinding(verticesList,
-                new float[]{-halfWidth, 0, halfWidth},
-                new float[]{halfWidth, 0, halfWidth},
-                new float[]{halfWidth, 0, -halfWidth},
-                new float[]{-halfWidth, 0, -halfWidth},
+        offset = addFaceWithWinding(vertices, offset,
+                new float[]{-h, 0, h},
+                new float[]{h, 0, h},
+                new float[]{h, 0, -h},
+                new float[]{-h, 0, -h},
                 new float[]{0.5f, 0.5f, 0.5f}
         );
 
-        addFaceWithWinding(verticesList,
-                new float[]{-halfWidth, 0, halfWidth},
-                new float[]{-halfWidth, cubeHeight, halfWidth},
-                new float[]{halfWidth, cubeHeight, halfWidth},
-                new float[]{halfWidth, 0, halfWidth},
+        offset = addFaceWithWinding(vertices, offset,
+                new float[]{-h, 0, h},
+                new float[]{-h, 1, h},
+                new float[]{h, 1, h},
+                new float[]{h, 0, h},
                 new float[]{0.0f, 1.0f, 0.0f}
         );
 
-        addFaceWithWinding(verticesList,
-                new float[]{halfWidth, 0, -halfWidth},
-                new float[]{halfWidth, cubeHeight, -halfWidth},
-                new float[]{-halfWidth, cubeHeight, -halfWidth},
-                new float[]{-halfWidth, 0, -halfWidth},
+        offset = addFaceWithWinding(vertices, offset,
+                new float[]{h, 0, -h},
+                new float[]{h, 1, -h},
+                new float[]{-h, 1, -h},
+                new float[]{-h, 0, -h},
                 new float[]{0.0f, 0.0f, 1.0f}
         );
 
-        addFaceWithWinding(verticesList,
-                new float[]{-halfWidth, 0, -halfWidth},
-                new float[]{-halfWidth, cubeHeight, -halfWidth},
-                new float[]{-halfWidth, cubeHeight, halfWidth},
-                new float[]{-halfWidth, 0, halfWidth},
+        offset = addFaceWithWinding(vertices, offset,
+                new float[]{-h, 0, -h},
+                new float[]{-h, 1, -h},
+                new float[]{-h, 1, h},
+                new float[]{-h, 0, h},
                 new float[]{1.0f, 0.0f, 0.0f}
         );
 
-        addFaceWithWinding(verticesList,
-                new float[]{halfWidth, 0, halfWidth},
-                new float[]{halfWidth, cubeHeight, halfWidth},
-                new float[]{halfWidth, cubeHeight, -halfWidth},
-                new float[]{halfWidth, 0, -halfWidth},
+        addFaceWithWinding(vertices, offset,
+                new float[]{h, 0, h},
+                new float[]{h, 1, h},
+                new float[]{h, 1, -h},
+                new float[]{h, 0, -h},
                 new float[]{1.0f, 1.0f, 0.0f}
         );
 
-        float[] vertices = new float[verticesList.size()];
-        for (int i = 0; i < verticesList.size(); i++) {
-            vertices[i] = verticesList.get(i);
-        }
-
         return vertices;
     }
 
-    private void addFaceWithWinding(List<Float> vertices, float[] p1, float[] p2, float[] p3, float[] p4, float[] color) {
-        addVertex(vertices, p1, color);
-        addVertex(vertices, p2, color);
-        addVertex(vertices, p3, color);
+    private static int addFaceWithWinding(float[] vertices, int offset, float[] p1, float[] p2, float[] p3, float[] p4, float[] color) {
+        offset = addVertex(vertices, offset, p1, color);
+        offset = addVertex(vertices, offset, p2, color);
+        offset = addVertex(vertices, offset, p3, color);
 
-        addVertex(vertices, p1, color);
-        addVertex(vertices, p3, color);
-        addVertex(vertices, p4, color);
+        offset = addVertex(vertices, offset, p1, color);
+        offset = addVertex(vertices, offset, p3, color);
+        return addVertex(vertices, offset, p4, color);
     }
 
-    private void addVertex(List<Float> vertices, float[] position, float[] color) {
-        vertices.add(position[0]);
-        vertices.add(position[1]);
-        vertices.add(position[2]);
-        vertices.add(color[0]);
-        vertices.add(color[1]);
-        vertices.add(color[2]);
+    // Полный формат вершины (9 float), UV и слой текстуры у моделей не используются
+    private static int addVertex(float[] vertices, int offset, float[] position, float[] color) {
+        vertices[offset++] = position[0];
+        vertices[offset++] = position[1];
+        vertices[offset++] = position[2];
+        vertices[offset++] = color[0];
+        vertices[offset++] = color[1];
+        vertices[offset++] = color[2];
+        vertices[offset++] = 0f;
+        vertices[offset++] = 0f;
+        vertices[offset++] = 0f;
+        return offset;
     }
 
     public void cleanup() {
-        for (VertexArray vao : chunkVAOs.values()) {
-            vao.cleanup();
-        }
-        chunkVAOs.clear();
-        shader.cleanup();
+        chunks.clear();
+        chunkGrid.clear();
+        terrainBuffer.cleanup();
+        opaqueShader.cleanup();
+        cutoutShader.cleanup();
+        hudShader.cleanup();
+        cameraUniforms.cleanup();
+        entityShader.cleanup();
+        playerModel.cleanup();
+        spriteBatch.cleanup();
+        gpuProfiler.cleanup();
         textureManager.cleanup();
     }
 }
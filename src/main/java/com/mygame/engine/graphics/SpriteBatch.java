@@ -0,0 +1,65 @@
+package com.mygame.engine.graphics;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+// Потоковый батч экранных прямоугольников: квады копятся за кадр в одном буфере
+// и рисуются одним вызовом. Координаты - в NDC, формат вершины общий (9 float).
+public class SpriteBatch {
+    private static final int FLOATS_PER_QUAD = 9 * 6;
+
+    private final VertexArray vao;
+    private FloatBuffer vertices = BufferUtils.createFloatBuffer(FLOATS_PER_QUAD * 16);
+
+    public SpriteBatch() {
+        vao = new VertexArray((long) vertices.capacity() * Float.BYTES);
+    }
+
+    public void begin() {
+        vertices.clear();
+    }
+
+    public void addQuad(float x0, float y0, float x1, float y1,
+                        float u0, float v0, float u1, float v1) {
+        addQuad(x0, y0, x1, y1, u0, v0, u1, v1, 1f, 1f, 1f);
+    }
+
+    public void addQuad(float x0, float y0, float x1, float y1,
+                        float u0, float v0, float u1, float v1,
+                        float r, float g, float b) {
+        if (vertices.remaining() < FLOATS_PER_QUAD) {
+            FloatBuffer bigger = BufferUtils.createFloatBuffer(vertices.capacity() * 2);
+            vertices.flip();
+            bigger.put(vertices);
+            vertices = bigger;
+        }
+        putVertex(x0, y1, u0, v1, r, g, b);
+        putVertex(x1, y1, u1, v1, r, g, b);
+        putVertex(x1, y0, u1, v0, r, g, b);
+
+        putVertex(x0, y1, u0, v1, r, g, b);
+        putVertex(x1, y0, u1, v0, r, g, b);
+        putVertex(x0, y0, u0, v0, r, g, b);
+    }
+
+    private void putVertex(float x, float y, float u, float v, float r, float g, float b) {
+        vertices.put(x).put(y).put(0f)
+                .put(r).put(g).put(b)
+                .put(u).put(v)
+                .put(0f);
+    }
+
+    public void flush() {
+        if (vertices.position() == 0) return;
+
+        vertices.flip();
+        vao.update(vertices, (long) vertices.capacity() * Float.BYTES);
+        vao.render();
+        vertices.clear();
+    }
+
+    public void cleanup() {
+        vao.cleanup();
+    }
+}
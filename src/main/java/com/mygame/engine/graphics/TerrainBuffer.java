@@ -0,0 +1,199 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+import com.mygame.world.chunk.Chunk;
+import lombok.Getter;
+import org.lwjgl.BufferUtils;
+
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL31.GL_COPY_READ_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+
+// Все меши чанков живут в одном большом VBO и рисуются одним multi-draw вызовом.
+// На GL 4.3 (или с ARB_multi_draw_indirect) - glMultiDrawArraysIndirect, на 3.3 - glMultiDrawArrays.
+public class TerrainBuffer {
+    private static final int VERTEX_BYTES = 9 * Float.BYTES;
+    private static final int INITIAL_VERTICES = 1 << 20;
+    private static final int GRANULARITY = 256;
+    // count, instanceCount, first, baseInstance
+    private static final int COMMAND_INTS = 4;
+
+    private final GlBackend gl = Gl.get();
+    private final int vaoID;
+    private int vboID;
+    private final int indirectID;
+    private final boolean multiDrawIndirect;
+    @Getter
+    private final BufferAllocator allocator = new BufferAllocator(INITIAL_VERTICES, GRANULARITY);
+    private final Map<Chunk, Slot> slots = new HashMap<>();
+
+    private IntBuffer commands = BufferUtils.createIntBuffer(256 * COMMAND_INTS);
+    private IntBuffer firsts = BufferUtils.createIntBuffer(256);
+    private IntBuffer counts = BufferUtils.createIntBuffer(256);
+    @Getter
+    private int drawCount;
+
+    private static final class Slot {
+        private int offset;
+        private int vertexCount;
+    }
+
+    public TerrainBuffer() {
+        multiDrawIndirect = gl.hasMultiDrawIndirect();
+
+        vaoID = gl.genVertexArrays();
+        vboID = createVertexBuffer(INITIAL_VERTICES);
+        bindAttributes();
+
+        indirectID = multiDrawIndirect ? gl.genBuffers() : 0;
+    }
+
+    public void upload(Chunk chunk, float[] vertices) {
+        int vertexCount = vertices.length / 9;
+        Slot slot = slots.get(chunk);
+
+        if (vertexCount == 0) {
+            remove(chunk);
+            return;
+        }
+
+        // Пишем на старое место, если меш туда влезает и не занимает меньше половины диапазона
+        int needed = allocator.roundUp(vertexCount);
+        boolean inPlace = slot != null && needed <= allocator.sizeOf(slot.offset) && needed * 2 > allocator.sizeOf(slot.offset);
+        if (!inPlace) {
+            if (slot != null) {
+                allocator.free(slot.offset);
+            } else {
+                slot = new Slot();
+                slots.put(chunk, slot);
+            }
+            int offset = allocator.allocate(vertexCount);
+            if (offset < 0) {
+                grow(vertexCount);
+                offset = allocator.allocate(vertexCount);
+            }
+            slot.offset = offset;
+        }
+        slot.vertexCount = vertexCount;
+
+        gl.bindBuffer(GL_ARRAY_BUFFER, vboID);
+        gl.bufferSubData(GL_ARRAY_BUFFER, (long) slot.offset * VERTEX_BYTES, vertices);
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    public void remove(Chunk chunk) {
+        Slot slot = slots.remove(chunk);
+        if (slot != null) {
+            allocator.free(slot.offset);
+        }
+    }
+
+    public boolean contains(Chunk chunk) {
+        return slots.containsKey(chunk);
+    }
+
+    // Новый набор вызовов; за кадр их несколько - по одному на слой меша
+    public void begin() {
+        drawCount = 0;
+        commands.clear();
+        firsts.clear();
+        counts.clear();
+    }
+
+    public void addDraw(Chunk chunk) {
+        addDraw(chunk, 0, Integer.MAX_VALUE);
+    }
+
+    // Рисует часть меша чанка: first и count в вершинах относительно начала его диапазона
+    public void addDraw(Chunk chunk, int first, int count) {
+        Slot slot = slots.get(chunk);
+        if (slot == null || first >= slot.vertexCount) return;
+        count = Math.min(count, slot.vertexCount - first);
+        if (count <= 0) return;
+
+        if (firsts.remaining() == 0) {
+            commands = grow(commands, commands.capacity() * 2);
+            firsts = grow(firsts, firsts.capacity() * 2);
+            counts = grow(counts, counts.capacity() * 2);
+        }
+        commands.put(count).put(1).put(slot.offset + first).put(0);
+        firsts.put(slot.offset + first);
+        counts.put(count);
+        drawCount++;
+    }
+
+    public void draw() {
+        if (drawCount == 0) return;
+
+        GlState.bindVertexArray(vaoID);
+        if (multiDrawIndirect) {
+            commands.flip();
+            gl.bindBuffer(GL_DRAW_INDIRECT_BUFFER, indirectID);
+            gl.bufferData(GL_DRAW_INDIRECT_BUFFER, commands, GL_STREAM_DRAW);
+            gl.multiDrawArraysIndirect(GL_TRIANGLES, 0L, drawCount, 0);
+            gl.bindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+        } else {
+            firsts.flip();
+            counts.flip();
+            gl.multiDrawArrays(GL_TRIANGLES, firsts, counts);
+        }
+    }
+
+    // Переносит содержимое в буфер побольше; смещения выделенных диапазонов не меняются
+    private void grow(int neededVertices) {
+        int oldCapacity = allocator.getCapacity();
+        int newCapacity = Math.max(oldCapacity * 2, oldCapacity + allocator.roundUp(neededVertices));
+
+        int newVbo = createVertexBuffer(newCapacity);
+        gl.bindBuffer(GL_COPY_READ_BUFFER, vboID);
+        gl.bindBuffer(GL_COPY_WRITE_BUFFER, newVbo);
+        gl.copyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, 0, 0, (long) oldCapacity * VERTEX_BYTES);
+        gl.bindBuffer(GL_COPY_READ_BUFFER, 0);
+        gl.bindBuffer(GL_COPY_WRITE_BUFFER, 0);
+
+        gl.deleteBuffers(vboID);
+        vboID = newVbo;
+        bindAttributes();
+        allocator.grow(newCapacity);
+    }
+
+    private int createVertexBuffer(int vertexCapacity) {
+        int id = gl.genBuffers();
+        gl.bindBuffer(GL_ARRAY_BUFFER, id);
+        gl.bufferData(GL_ARRAY_BUFFER, (long) vertexCapacity * VERTEX_BYTES, GL_DYNAMIC_DRAW);
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+        return id;
+    }
+
+    private void bindAttributes() {
+        GlState.bindVertexArray(vaoID);
+        gl.bindBuffer(GL_ARRAY_BUFFER, vboID);
+        VertexArray.setupAttributes();
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+        GlState.bindVertexArray(0);
+    }
+
+    private static IntBuffer grow(IntBuffer buffer, int capacity) {
+        IntBuffer bigger = BufferUtils.createIntBuffer(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    public void cleanup() {
+        GlState.bindVertexArray(0);
+        gl.deleteVertexArrays(vaoID);
+        gl.deleteBuffers(vboID);
+        if (indirectID != 0) {
+            gl.deleteBuffers(indirectID);
+        }
+        slots.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package com.mygame.engine.graphics;
+
+import com.mygame.engine.profiler.Profiler;
+import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkMeshUpload;
+import lombok.Getter;
+import lombok.Setter;
+import org.joml.FrustumIntersection;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Очередь загрузок мешей в GPU с бюджетом на кадр. За кадр загружается не больше budgetNanos
+// времени и budgetBytes байт (хотя бы один меш - чтобы очередь всегда двигалась), остальное
+// переносится на следующие кадры. Первыми идут ближние чанки в пирамиде видимости.
+// Живёт только в потоке рендера.
+public class UploadScheduler {
+    private static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+    private static final long DEFAULT_BUDGET_BYTES = 8L << 20;
+    // Чанк вне пирамиды ждёт, как если бы был вдвое дальше
+    private static final float OUT_OF_VIEW_PENALTY = 4f;
+    private static final Comparator<Pending> BY_PRIORITY = Comparator.comparingDouble(pending -> pending.priority);
+
+    private static final class Pending {
+        private ChunkMeshUpload upload;
+        private float priority;
+    }
+
+    private final Profiler profiler = Profiler.getInstance();
+    // Новое задание чанка заменяет ещё не загруженное старое
+    private final Map<Chunk, Pending> pending = new HashMap<>();
+    private final List<Pending> order = new ArrayList<>();
+    @Getter
+    @Setter
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    @Getter
+    @Setter
+    private long budgetBytes = DEFAULT_BUDGET_BYTES;
+    // Статистика последнего кадра
+    @Getter
+    private int uploadedCount;
+    @Getter
+    private long uploadedBytes;
+
+    public void submit(ChunkMeshUpload upload) {
+        // Выгрузка могла прийти раньше своей загрузки: очереди загрузок и выгрузок разбираются по отдельности
+        if (upload.chunk().isUnloaded()) return;
+
+        Pending entry = pending.computeIfAbsent(upload.chunk(), chunk -> new Pending());
+        entry.upload = upload;
+    }
+
+    // Чанк выгружен раньше, чем дошла очередь его загрузки
+    public void cancel(Chunk chunk) {
+        pending.remove(chunk);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public void run(Consumer<ChunkMeshUpload> uploader, Vector3f camera, FrustumIntersection frustum) {
+        uploadedCount = 0;
+        uploadedBytes = 0;
+        if (!pending.isEmpty()) {
+            order.clear();
+            for (Pending entry : pending.values()) {
+                entry.priority = priority(entry.upload, camera, frustum);
+                order.add(entry);
+            }
+            order.sort(BY_PRIORITY);
+
+            long start = System.nanoTime();
+            for (Pending entry : order) {
+                long bytes = (long) entry.upload.vertices().length * Float.BYTES;
+                if (uploadedCount > 0 && (uploadedBytes + bytes > budgetBytes || System.nanoTime() - start >= budgetNanos)) {
+                    break;
+                }
+                pending.remove(entry.upload.chunk());
+                if (entry.upload.chunk().isUnloaded()) continue;
+
+                uploader.accept(entry.upload);
+                uploadedCount++;
+                uploadedBytes += bytes;
+            }
+            order.clear();
+        }
+
+        profiler.counter("upload queue", pending.size());
+        profiler.counter("upload bytes", uploadedBytes);
+    }
+
+    private static float priority(ChunkMeshUpload upload, Vector3f camera, FrustumIntersection frustum) {
+        float dx = (upload.minX() + upload.maxX()) * 0.5f - camera.x;
+        float dy = (upload.minY() + upload.maxY()) * 0.5f - camera.y;
+        float dz = (upload.minZ() + upload.maxZ()) * 0.5f - camera.z;
+        float distance = dx * dx + dy * dy + dz * dz;
+        boolean inView = frustum.testAab(upload.minX(), upload.minY(), upload.minZ(),
+                upload.maxX(), upload.maxY(), upload.maxZ());
+        return inView ? distance : distance * OUT_OF_VIEW_PENALTY;
+    }
+}
@@ -1,65 +1,95 @@
 package com.mygame.engine.graphics;
 
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
 import lombok.Getter;
 
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
 import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL30.*;
 
+// Потоковый VAO/VBO для вершин, которые переписываются каждый кадр (SpriteBatch).
+// Меши чанков сюда не попадают: они живут в общем TerrainBuffer.
 public class VertexArray {
+    private final GlBackend gl = Gl.get();
     private final int vaoID;
     private final int vboID;
     @Getter
-    private final int vertexCount;
+    private int vertexCount;
+    // Размер выделенного под VBO хранилища в байтах
+    private long capacity;
 
-    public VertexArray(float[] vertices) {
-        // 9 элементов на вершину: x,y,z,r,g,b,u,v,type
-        this.vertexCount = vertices.length / 9;
+    public VertexArray(long capacity) {
+        this.capacity = capacity;
+
+        vaoID = gl.genVertexArrays();
+        GlState.bindVertexArray(vaoID);
 
-        vaoID = glGenVertexArrays();
-        glBindVertexArray(vaoID);
+        vboID = gl.genBuffers();
+        gl.bindBuffer(GL_ARRAY_BUFFER, vboID);
+        gl.bufferData(GL_ARRAY_BUFFER, capacity, GL_DYNAMIC_DRAW);
 
-        vboID = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboID);
-        glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+        setupAttributes();
+
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
+        GlState.bindVertexArray(0);
+    }
 
+    // Раскладка вершины для привязанных VAO и GL_ARRAY_BUFFER
+    static void setupAttributes() {
+        GlBackend gl = Gl.get();
+        // 9 элементов на вершину: x,y,z,r,g,b,u,v,type
         // Позиция (3 float)
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 9 * Float.BYTES, 0);
-        glEnableVertexAttribArray(0);
+        gl.vertexAttribPointer(0, 3, GL_FLOAT, false, 9 * Float.BYTES, 0);
+        gl.enableVertexAttribArray(0);
 
         // Цвет (3 float)
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, 9 * Float.BYTES, 3 * Float.BYTES);
-        glEnableVertexAttribArray(1);
+        gl.vertexAttribPointer(1, 3, GL_FLOAT, false, 9 * Float.BYTES, 3 * Float.BYTES);
+        gl.enableVertexAttribArray(1);
 
         // UV координаты (2 float)
-        glVertexAttribPointer(2, 2, GL_FLOAT, false, 9 * Float.BYTES, 6 * Float.BYTES);
-        glEnableVertexAttribArray(2);
+        gl.vertexAttribPointer(2, 2, GL_FLOAT, false, 9 * Float.BYTES, 6 * Float.BYTES);
+        gl.enableVertexAttribArray(2);
 
         // Тип текстуры (1 float) - ВАЖНО!
-        glVertexAttribPointer(3, 1, GL_FLOAT, false, 9 * Float.BYTES, 8 * Float.BYTES);
-        glEnableVertexAttribArray(3);
+        gl.vertexAttribPointer(3, 1, GL_FLOAT, false, 9 * Float.BYTES, 8 * Float.BYTES);
+        gl.enableVertexAttribArray(3);
+    }
 
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+    // Загружает [position, limit) без пересоздания VAO/VBO. Если данные не помещаются или батч
+    // сменил размер, хранилище осиротевает и выделяется заново, имя буфера сохраняется.
+    public void update(FloatBuffer vertices, long newCapacity) {
+        long bytes = vertices.remaining() * (long) Float.BYTES;
+        gl.bindBuffer(GL_ARRAY_BUFFER, vboID);
+        if (bytes > capacity || newCapacity != capacity) {
+            capacity = Math.max(bytes, newCapacity);
+            gl.bufferData(GL_ARRAY_BUFFER, capacity, GL_DYNAMIC_DRAW);
+        }
+        vertexCount = vertices.remaining() / 9;
+        gl.bufferSubData(GL_ARRAY_BUFFER, 0, vertices);
+        gl.bindBuffer(GL_ARRAY_BUFFER, 0);
     }
 
     public void bind() {
-        glBindVertexArray(vaoID);
+        GlState.bindVertexArray(vaoID);
     }
 
     public void unbind() {
-        glBindVertexArray(0);
+        GlState.bindVertexArray(0);
     }
 
+    // VAO остаётся привязанным: следующий bind того же VAO будет пропущен кэшем
     public void render() {
+        if (vertexCount == 0) return;
         bind();
-        glDrawArrays(GL_TRIANGLES, 0, vertexCount);
-        unbind();
+        gl.drawArrays(GL_TRIANGLES, 0, vertexCount);
     }
 
     public void cleanup() {
-        glDeleteVertexArrays(vaoID);
-        glDeleteBuffers(vboID);
+        unbind();
+        gl.deleteVertexArrays(vaoID);
+        gl.deleteBuffers(vboID);
     }
 }
-
@@ -0,0 +1,25 @@
+package com.mygame.engine.graphics.backend;
+
+import com.mygame.engine.graphics.GlState;
+
+// Текущий бэкенд GL. По умолчанию - настоящий LWJGL; бенчмарки и тесты подменяют его
+// на RecordingGlBackend до создания Renderer.
+public final class Gl {
+    private static GlBackend backend;
+
+    private Gl() {
+    }
+
+    public static GlBackend get() {
+        if (backend == null) {
+            backend = new LwjglGlBackend();
+        }
+        return backend;
+    }
+
+    public static void set(GlBackend newBackend) {
+        backend = newBackend;
+        // Закэшированные привязки относились к прошлому бэкенду
+        GlState.invalidate();
+    }
+}
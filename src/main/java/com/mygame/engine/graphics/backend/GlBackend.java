@@ -0,0 +1,92 @@
+package com.mygame.engine.graphics.backend;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+// Тонкая прослойка над OpenGL: ровно те вызовы, которые использует рендер. Имена повторяют
+// функции GL без префикса, константы - обычные GL_* из LWJGL (они подставляются при компиляции
+// и не тянут нативные библиотеки). Загрузка картинок тоже здесь, потому что STB - нативная.
+public interface GlBackend {
+    // Буферы
+    int genBuffers();
+    void bindBuffer(int target, int buffer);
+    void bufferData(int target, long size, int usage);
+    void bufferData(int target, float[] data, int usage);
+    void bufferData(int target, IntBuffer data, int usage);
+    void bufferSubData(int target, long offset, float[] data);
+    void bufferSubData(int target, long offset, FloatBuffer data);
+    void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size);
+    void bindBufferBase(int target, int index, int buffer);
+    void deleteBuffers(int buffer);
+
+    // Вершинные массивы и отрисовка
+    int genVertexArrays();
+    void bindVertexArray(int array);
+    void deleteVertexArrays(int array);
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer);
+    void enableVertexAttribArray(int index);
+    void vertexAttribDivisor(int index, int divisor);
+    void drawArrays(int mode, int first, int count);
+    void drawArraysInstanced(int mode, int first, int count, int instanceCount);
+    void multiDrawArrays(int mode, IntBuffer firsts, IntBuffer counts);
+    // glMultiDrawArraysIndirect из GL 4.3 или ARB_multi_draw_indirect
+    boolean hasMultiDrawIndirect();
+    void multiDrawArraysIndirect(int mode, long indirect, int drawCount, int stride);
+
+    // Текстуры
+    int genTextures();
+    void activeTexture(int unit);
+    void bindTexture(int target, int texture);
+    void texParameteri(int target, int name, int value);
+    void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type, ByteBuffer pixels);
+    void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int format, int type);
+    void texSubImage3D(int target, int level, int x, int y, int z, int width, int height, int depth, int format, int type, ByteBuffer pixels);
+    void generateMipmap(int target);
+    void deleteTextures(int texture);
+
+    // Шейдеры
+    int createProgram();
+    int createShader(int type);
+    void shaderSource(int shader, CharSequence source);
+    void compileShader(int shader);
+    int getShaderi(int shader, int name);
+    String getShaderInfoLog(int shader);
+    void attachShader(int program, int shader);
+    void detachShader(int program, int shader);
+    void linkProgram(int program);
+    void validateProgram(int program);
+    int getProgrami(int program, int name);
+    String getProgramInfoLog(int program);
+    void deleteShader(int shader);
+    void deleteProgram(int program);
+    void useProgram(int program);
+    int getUniformLocation(int program, CharSequence name);
+    int getUniformBlockIndex(int program, CharSequence name);
+    void uniformBlockBinding(int program, int blockIndex, int binding);
+    void uniform1i(int location, int value);
+    void uniform1iv(int location, int[] values);
+    void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value);
+
+    // Запросы таймеров
+    void genQueries(int[] ids);
+    void deleteQueries(int[] ids);
+    void beginQuery(int target, int id);
+    void endQuery(int target);
+    int getQueryObjecti(int id, int name);
+    long getQueryObjecti64(int id, int name);
+
+    // Прочее состояние
+    void clearColor(float r, float g, float b, float a);
+    void clear(int mask);
+    void enable(int cap);
+    void disable(int cap);
+    void blendFunc(int sfactor, int dfactor);
+
+    // RGBA8, перевёрнутое по вертикали под UV OpenGL; null, если файл не прочитан
+    Image loadImage(String filepath);
+    void freeImage(Image image);
+
+    record Image(int width, int height, ByteBuffer pixels) {
+    }
+}
@@ -0,0 +1,372 @@
+package com.mygame.engine.graphics.backend;
+
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.glTexImage3D;
+import static org.lwjgl.opengl.GL12.glTexSubImage3D;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL14.glMultiDrawArrays;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.glGetQueryObjecti64;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+import static org.lwjgl.stb.STBImage.*;
+
+// Настоящий OpenGL через LWJGL. Только этот класс трогает нативные части LWJGL
+// (GL, STB, MemoryStack), поэтому без контекста и нативных библиотек он не нужен.
+public class LwjglGlBackend implements GlBackend {
+    // Определяются по первому запросу, когда контекст уже создан
+    private Boolean multiDrawIndirect;
+    private boolean arbMultiDrawIndirect;
+
+    @Override
+    public int genBuffers() {
+        return glGenBuffers();
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        glBufferData(target, size, usage);
+    }
+
+    @Override
+    public void bufferData(int target, float[] data, int usage) {
+        glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) {
+        glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, float[] data) {
+        glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        glCopyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public void bindBufferBase(int target, int index, int buffer) {
+        glBindBufferBase(target, index, buffer);
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+        glDeleteBuffers(buffer);
+    }
+
+    @Override
+    public int genVertexArrays() {
+        return glGenVertexArrays();
+    }
+
+    @Override
+    public void bindVertexArray(int array) {
+        glBindVertexArray(array);
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) {
+        glDeleteVertexArrays(array);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+        glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        glVertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        glDrawArraysInstanced(mode, first, count, instanceCount);
+    }
+
+    @Override
+    public void multiDrawArrays(int mode, IntBuffer firsts, IntBuffer counts) {
+        glMultiDrawArrays(mode, firsts, counts);
+    }
+
+    @Override
+    public boolean hasMultiDrawIndirect() {
+        if (multiDrawIndirect == null) {
+            GLCapabilities caps = GL.getCapabilities();
+            arbMultiDrawIndirect = !caps.OpenGL43 && caps.GL_ARB_multi_draw_indirect && caps.GL_ARB_draw_indirect;
+            multiDrawIndirect = caps.OpenGL43 || arbMultiDrawIndirect;
+        }
+        return multiDrawIndirect;
+    }
+
+    @Override
+    public void multiDrawArraysIndirect(int mode, long indirect, int drawCount, int stride) {
+        if (arbMultiDrawIndirect) {
+            ARBMultiDrawIndirect.glMultiDrawArraysIndirect(mode, indirect, drawCount, stride);
+        } else {
+            GL43.glMultiDrawArraysIndirect(mode, indirect, drawCount, stride);
+        }
+    }
+
+    @Override
+    public int genTextures() {
+        return glGenTextures();
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        glActiveTexture(unit);
+    }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        glBindTexture(target, texture);
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int value) {
+        glTexParameteri(target, name, value);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type, ByteBuffer pixels) {
+        glTexImage2D(target, level, internalFormat, width, height, 0, format, type, pixels);
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int format, int type) {
+        glTexImage3D(target, level, internalFormat, width, height, depth, 0, format, type, (ByteBuffer) null);
+    }
+
+    @Override
+    public void texSubImage3D(int target, int level, int x, int y, int z, int width, int height, int depth, int format, int type, ByteBuffer pixels) {
+        glTexSubImage3D(target, level, x, y, z, width, height, depth, format, type, pixels);
+    }
+
+    @Override
+    public void generateMipmap(int target) {
+        glGenerateMipmap(target);
+    }
+
+    @Override
+    public void deleteTextures(int texture) {
+        glDeleteTextures(texture);
+    }
+
+    @Override
+    public int createProgram() {
+        return glCreateProgram();
+    }
+
+    @Override
+    public int createShader(int type) {
+        return glCreateShader(type);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        glShaderSource(shader, source);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        glCompileShader(shader);
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return glGetShaderi(shader, name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        glAttachShader(program, shader);
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        glDetachShader(program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        glLinkProgram(program);
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        glValidateProgram(program);
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return glGetProgrami(program, name);
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        glDeleteShader(shader);
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        glDeleteProgram(program);
+    }
+
+    @Override
+    public void useProgram(int program) {
+        glUseProgram(program);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return glGetUniformBlockIndex(program, name);
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int blockIndex, int binding) {
+        glUniformBlockBinding(program, blockIndex, binding);
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        glUniform1i(location, value);
+    }
+
+    @Override
+    public void uniform1iv(int location, int[] values) {
+        glUniform1iv(location, values);
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value) {
+        glUniformMatrix4fv(location, transpose, value);
+    }
+
+    @Override
+    public void genQueries(int[] ids) {
+        glGenQueries(ids);
+    }
+
+    @Override
+    public void deleteQueries(int[] ids) {
+        glDeleteQueries(ids);
+    }
+
+    @Override
+    public void beginQuery(int target, int id) {
+        glBeginQuery(target, id);
+    }
+
+    @Override
+    public void endQuery(int target) {
+        glEndQuery(target);
+    }
+
+    @Override
+    public int getQueryObjecti(int id, int name) {
+        return glGetQueryObjecti(id, name);
+    }
+
+    @Override
+    public long getQueryObjecti64(int id, int name) {
+        return glGetQueryObjecti64(id, name);
+    }
+
+    @Override
+    public void clearColor(float r, float g, float b, float a) {
+        glClearColor(r, g, b, a);
+    }
+
+    @Override
+    public void clear(int mask) {
+        glClear(mask);
+    }
+
+    @Override
+    public void enable(int cap) {
+        glEnable(cap);
+    }
+
+    @Override
+    public void disable(int cap) {
+        glDisable(cap);
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public Image loadImage(String filepath) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            stbi_set_flip_vertically_on_load(true);
+            ByteBuffer pixels = stbi_load(filepath, w, h, channels, 4);
+            if (pixels == null) {
+                return null;
+            }
+            return new Image(w.get(0), h.get(0), pixels);
+        }
+    }
+
+    @Override
+    public void freeImage(Image image) {
+        stbi_image_free(image.pixels());
+    }
+}
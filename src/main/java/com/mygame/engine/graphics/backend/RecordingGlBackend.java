@@ -0,0 +1,366 @@
+package com.mygame.engine.graphics.backend;
+
+import lombok.Getter;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+
+// Бэкенд без GPU: ничего не рисует, только считает вызовы. Нужен для бенчмарков и прогонов
+// без окна - не трогает нативные библиотеки (STB, MemoryStack, MemoryUtil), поэтому работает
+// на любой платформе. Имена объектов выдаются подряд, шейдеры всегда "компилируются".
+public class RecordingGlBackend implements GlBackend {
+    private static final int IMAGE_SIZE = 16;
+
+    private int nextName = 1;
+
+    // Вызовы отрисовки и вершины в них; multi-draw - один вызов на много команд
+    @Getter
+    private long drawCalls;
+    @Getter
+    private long drawCommands;
+    @Getter
+    private long vertices;
+    // Смены программы, VAO, текстур и флагов конвейера
+    @Getter
+    private long stateChanges;
+    @Getter
+    private long bufferBinds;
+    // Передачи данных в буферы и текстуры
+    @Getter
+    private long uploads;
+    @Getter
+    private long uploadBytes;
+
+    public void reset() {
+        drawCalls = 0;
+        drawCommands = 0;
+        vertices = 0;
+        stateChanges = 0;
+        bufferBinds = 0;
+        uploads = 0;
+        uploadBytes = 0;
+    }
+
+    private void upload(long bytes) {
+        uploads++;
+        uploadBytes += bytes;
+    }
+
+    @Override
+    public int genBuffers() {
+        return nextName++;
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        bufferBinds++;
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+    }
+
+    @Override
+    public void bufferData(int target, float[] data, int usage) {
+        upload((long) data.length * Float.BYTES);
+    }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) {
+        upload((long) data.remaining() * Integer.BYTES);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, float[] data) {
+        upload((long) data.length * Float.BYTES);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        upload((long) data.remaining() * Float.BYTES);
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+    }
+
+    @Override
+    public void bindBufferBase(int target, int index, int buffer) {
+        bufferBinds++;
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+    }
+
+    @Override
+    public int genVertexArrays() {
+        return nextName++;
+    }
+
+    @Override
+    public void bindVertexArray(int array) {
+        stateChanges++;
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) {
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+    }
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        drawCalls++;
+        drawCommands++;
+        vertices += count;
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        drawCalls++;
+        drawCommands++;
+        vertices += (long) count * instanceCount;
+    }
+
+    @Override
+    public void multiDrawArrays(int mode, IntBuffer firsts, IntBuffer counts) {
+        drawCalls++;
+        for (int i = counts.position(); i < counts.limit(); i++) {
+            drawCommands++;
+            vertices += counts.get(i);
+        }
+    }
+
+    // Без indirect рендер идёт через glMultiDrawArrays, где счётчики видны на стороне CPU
+    @Override
+    public boolean hasMultiDrawIndirect() {
+        return false;
+    }
+
+    @Override
+    public void multiDrawArraysIndirect(int mode, long indirect, int drawCount, int stride) {
+        drawCalls++;
+        drawCommands += drawCount;
+    }
+
+    @Override
+    public int genTextures() {
+        return nextName++;
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        stateChanges++;
+    }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        stateChanges++;
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int value) {
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type, ByteBuffer pixels) {
+        if (pixels != null) {
+            upload(pixels.remaining());
+        }
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int format, int type) {
+    }
+
+    @Override
+    public void texSubImage3D(int target, int level, int x, int y, int z, int width, int height, int depth, int format, int type, ByteBuffer pixels) {
+        upload(pixels.remaining());
+    }
+
+    @Override
+    public void generateMipmap(int target) {
+    }
+
+    @Override
+    public void deleteTextures(int texture) {
+    }
+
+    @Override
+    public int createProgram() {
+        return nextName++;
+    }
+
+    @Override
+    public int createShader(int type) {
+        return nextName++;
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+    }
+
+    @Override
+    public void compileShader(int shader) {
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return GL_TRUE;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return "";
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+    }
+
+    @Override
+    public void linkProgram(int program) {
+    }
+
+    @Override
+    public void validateProgram(int program) {
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return GL_TRUE;
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return "";
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+    }
+
+    @Override
+    public void useProgram(int program) {
+        stateChanges++;
+    }
+
+    // Каждое имя получает свою локацию, как если бы все uniform-ы были в программе
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return nextName++;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return 0;
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int blockIndex, int binding) {
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+    }
+
+    @Override
+    public void uniform1iv(int location, int[] values) {
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value) {
+    }
+
+    @Override
+    public void genQueries(int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextName++;
+        }
+    }
+
+    @Override
+    public void deleteQueries(int[] ids) {
+    }
+
+    @Override
+    public void beginQuery(int target, int id) {
+    }
+
+    @Override
+    public void endQuery(int target) {
+    }
+
+    // Результаты "готовы" сразу и равны нулю: GPU-время без GPU не измерить
+    @Override
+    public int getQueryObjecti(int id, int name) {
+        return name == GL_QUERY_RESULT_AVAILABLE ? GL_TRUE : 0;
+    }
+
+    @Override
+    public long getQueryObjecti64(int id, int name) {
+        return 0;
+    }
+
+    @Override
+    public void clearColor(float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void clear(int mask) {
+    }
+
+    @Override
+    public void enable(int cap) {
+        stateChanges++;
+    }
+
+    @Override
+    public void disable(int cap) {
+        stateChanges++;
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        stateChanges++;
+    }
+
+    // Файл не читается: вместо картинки - белый квадрат одного размера для всех текстур
+    @Override
+    public Image loadImage(String filepath) {
+        ByteBuffer pixels = BufferUtils.createByteBuffer(IMAGE_SIZE * IMAGE_SIZE * 4);
+        while (pixels.hasRemaining()) {
+            pixels.put((byte) 0xFF);
+        }
+        pixels.flip();
+        return new Image(IMAGE_SIZE, IMAGE_SIZE, pixels);
+    }
+
+    @Override
+    public void freeImage(Image image) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.mygame.engine.graphics.shader;
 
+import com.mygame.engine.graphics.GlState;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
 import org.joml.Matrix4f;
 import org.lwjgl.BufferUtils;
 
@@ -7,83 +10,112 @@ import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
 
 public class Shader {
+    private final GlBackend gl = Gl.get();
     private final int programID;
     private final int vertexShaderID;
     private final int fragmentShaderID;
+    // Локации ищутся в драйвере один раз на имя, -1 тоже кэшируется
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
+    private final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
 
     public Shader(String vertexFile, String fragmentFile) {
-        programID = glCreateProgram();
+        programID = gl.createProgram();
 
-        vertexShaderID = glCreateShader(GL_VERTEX_SHADER);
-        glShaderSource(vertexShaderID, readFile(vertexFile));
-        glCompileShader(vertexShaderID);
-        if (glGetShaderi(vertexShaderID, GL_COMPILE_STATUS) == GL_FALSE) {
-            System.err.println("Ошибка компиляции вершинного шейдера: " + glGetShaderInfoLog(vertexShaderID));
+        vertexShaderID = gl.createShader(GL_VERTEX_SHADER);
+        gl.shaderSource(vertexShaderID, readFile(vertexFile));
+        gl.compileShader(vertexShaderID);
+        if (gl.getShaderi(vertexShaderID, GL_COMPILE_STATUS) == GL_FALSE) {
+            System.err.println("Ошибка компиляции вершинного шейдера: " + gl.getShaderInfoLog(vertexShaderID));
             System.exit(-1);
         }
 
-        fragmentShaderID = glCreateShader(GL_FRAGMENT_SHADER);
-        glShaderSource(fragmentShaderID, readFile(fragmentFile));
-        glCompileShader(fragmentShaderID);
+        fragmentShaderID = gl.createShader(GL_FRAGMENT_SHADER);
+        gl.shaderSource(fragmentShaderID, readFile(fragmentFile));
+        gl.compileShader(fragmentShaderID);
 
-        if (glGetShaderi(fragmentShaderID, GL_COMPILE_STATUS) == GL_FALSE) {
-            System.err.println("Ошибка компиляции фрагментного шейдера: " + glGetShaderInfoLog(fragmentShaderID));
+        if (gl.getShaderi(fragmentShaderID, GL_COMPILE_STATUS) == GL_FALSE) {
+            System.err.println("Ошибка компиляции фрагментного шейдера: " + gl.getShaderInfoLog(fragmentShaderID));
             System.exit(-1);
         }
 
-        glAttachShader(programID, vertexShaderID);
-        glAttachShader(programID, fragmentShaderID);
-        glLinkProgram(programID);
+        gl.attachShader(programID, vertexShaderID);
+        gl.attachShader(programID, fragmentShaderID);
+        gl.linkProgram(programID);
 
-        if (glGetProgrami(programID, GL_LINK_STATUS) == GL_FALSE) {
-            System.err.println("Ошибка линковки шейдерной программы: " + glGetProgramInfoLog(programID));
+        if (gl.getProgrami(programID, GL_LINK_STATUS) == GL_FALSE) {
+            System.err.println("Ошибка линковки шейдерной программы: " + gl.getProgramInfoLog(programID));
             System.exit(-1);
         }
 
-        glValidateProgram(programID);
-        if (glGetProgrami(programID, GL_VALIDATE_STATUS) == GL_FALSE) {
-            System.err.println("Ошибка валидации шейдерной программы: " + glGetProgramInfoLog(programID));
+        gl.validateProgram(programID);
+        if (gl.getProgrami(programID, GL_VALIDATE_STATUS) == GL_FALSE) {
+            System.err.println("Ошибка валидации шейдерной программы: " + gl.getProgramInfoLog(programID));
             System.exit(-1);
         }
     }
 
     public void bind() {
-        glUseProgram(programID);
+        GlState.useProgram(programID);
     }
 
     public void unbind() {
-        glUseProgram(0);
+        GlState.useProgram(0);
+    }
+
+    private int getUniformLocation(String name) {
+        Integer location = uniformLocations.get(name);
+        if (location == null) {
+            location = gl.getUniformLocation(programID, name);
+            uniformLocations.put(name, location);
+        }
+        return location;
+    }
+
+    // Привязывает uniform-блок программы к точке привязки буфера, если блок в программе есть
+    public void bindUniformBlock(String blockName, int binding) {
+        int index = gl.getUniformBlockIndex(programID, blockName);
+        if (index != GL_INVALID_INDEX) {
+            gl.uniformBlockBinding(programID, index, binding);
+        }
     }
 
     public void setUniform(String name, Matrix4f matrix) {
-        int location = glGetUniformLocation(programID, name);
+        int location = getUniformLocation(name);
+        if (location != -1) {
+            matrix.get(matrixBuffer);
+            gl.uniformMatrix4fv(location, false, matrixBuffer);
+        }
+    }
+
+    public void setUniform(String name, int value) {
+        int location = getUniformLocation(name);
         if (location != -1) {
-            FloatBuffer buffer = BufferUtils.createFloatBuffer(16);
-            matrix.get(buffer);
-            glUniformMatrix4fv(location, false, buffer);
+            gl.uniform1i(location, value);
         }
     }
 
     public void setUniform(String name, int[] value) {
-        int location = glGetUniformLocation(programID, name);
+        int location = getUniformLocation(name);
         if (location != -1) {
-            int samplerLoc = glGetUniformLocation(programID, name);
-            glUniform1iv(samplerLoc, value);
+            gl.uniform1iv(location, value);
         }
     }
 
     public void cleanup() {
         unbind();
         if (programID != 0) {
-            glDetachShader(programID, vertexShaderID);
-            glDetachShader(programID, fragmentShaderID);
-            glDeleteShader(vertexShaderID);
-            glDeleteShader(fragmentShaderID);
-            glDeleteProgram(programID);
+            gl.detachShader(programID, vertexShaderID);
+            gl.detachShader(programID, fragmentShaderID);
+            gl.deleteShader(vertexShaderID);
+            gl.deleteShader(fragmentShaderID);
+            gl.deleteProgram(programID);
         }
     }
 
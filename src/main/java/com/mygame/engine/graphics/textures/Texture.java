@@ -1,66 +1,52 @@
 package com.mygame.engine.graphics.textures;
 
-import org.lwjgl.system.MemoryStack;
-
-import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
+import com.mygame.engine.graphics.GlState;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
 
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
-import static org.lwjgl.opengl.GL13.glActiveTexture;
-import static org.lwjgl.stb.STBImage.*;
 
 public class Texture {
+    private final GlBackend gl = Gl.get();
     private final int id;
     private final int width;
     private final int height;
 
     public Texture(String filepath) {
-        // Используем STBImage для загрузки PNG/JPG
-        ByteBuffer image;
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            IntBuffer w = stack.mallocInt(1);
-            IntBuffer h = stack.mallocInt(1);
-            IntBuffer channels = stack.mallocInt(1);
-
-            stbi_set_flip_vertically_on_load(true); // переворачиваем вертикально
-            image = stbi_load(filepath, w, h, channels, 4); // RGBA
-
-            if (image == null) {
-                throw new RuntimeException("Не удалось загрузить текстуру: " + filepath);
-            }
-
-            width = w.get();
-            height = h.get();
+        // Картинка читается бэкендом (STB у настоящего GL), уже перевёрнутой вертикально
+        GlBackend.Image image = gl.loadImage(filepath);
+        if (image == null) {
+            throw new RuntimeException("Не удалось загрузить текстуру: " + filepath);
         }
+        width = image.width();
+        height = image.height();
 
         // Создаем текстуру в OpenGL
-        id = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, id);
+        id = gl.genTextures();
+        GlState.bindTexture(GL_TEXTURE_2D, id);
 
         // Устанавливаем параметры фильтрации
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
 
         // Загружаем данные изображения в OpenGL
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0,
-                GL_RGBA, GL_UNSIGNED_BYTE, image);
+        gl.texImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height,
+                GL_RGBA, GL_UNSIGNED_BYTE, image.pixels());
 
-        glBindTexture(GL_TEXTURE_2D, 0);
+        GlState.bindTexture(GL_TEXTURE_2D, 0);
 
-        stbi_image_free(image);
+        gl.freeImage(image);
     }
 
     public void bind(int unit) {
-        glActiveTexture(GL_TEXTURE0 + unit);
-        glBindTexture(GL_TEXTURE_2D, id);
+        GlState.bindTexture(unit, GL_TEXTURE_2D, id);
     }
 
     public void unbind() {
-        glBindTexture(GL_TEXTURE_2D, 0);
+        GlState.bindTexture(GL_TEXTURE_2D, 0);
     }
 
     public void cleanup() {
-        glDeleteTextures(id);
+        gl.deleteTextures(id);
     }
 }
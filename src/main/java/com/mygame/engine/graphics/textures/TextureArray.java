@@ -0,0 +1,80 @@
+package com.mygame.engine.graphics.textures;
+
+import com.mygame.engine.graphics.GlState;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+
+// Набор одинаковых по размеру текстур в одном GL_TEXTURE_2D_ARRAY: слой выбирается
+// индексом из вершины, поэтому весь набор привязывается одним вызовом
+public class TextureArray {
+    private final GlBackend gl = Gl.get();
+    private final int id;
+    private final int width;
+    private final int height;
+    private final int layers;
+
+    public TextureArray(List<String> filepaths) {
+        layers = filepaths.size();
+        id = gl.genTextures();
+        GlState.bindTexture(GL_TEXTURE_2D_ARRAY, id);
+
+        int layerWidth = 0;
+        int layerHeight = 0;
+        for (int layer = 0; layer < layers; layer++) {
+            String filepath = filepaths.get(layer);
+            GlBackend.Image image = gl.loadImage(filepath);
+            if (image == null) {
+                throw new RuntimeException("Не удалось загрузить текстуру: " + filepath);
+            }
+
+            if (layer == 0) {
+                // Хранилище под все слои выделяется по размеру первого изображения
+                layerWidth = image.width();
+                layerHeight = image.height();
+                gl.texImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_RGBA8, layerWidth, layerHeight, layers,
+                        GL_RGBA, GL_UNSIGNED_BYTE);
+            } else if (image.width() != layerWidth || image.height() != layerHeight) {
+                gl.freeImage(image);
+                throw new RuntimeException("Размер текстуры " + filepath + " не совпадает с остальными слоями: "
+                        + image.width() + "x" + image.height() + " вместо " + layerWidth + "x" + layerHeight);
+            }
+
+            gl.texSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, layer, layerWidth, layerHeight, 1,
+                    GL_RGBA, GL_UNSIGNED_BYTE, image.pixels());
+            gl.freeImage(image);
+        }
+        width = layerWidth;
+        height = layerHeight;
+
+        // Мипмапы убирают рябь на дальних гранях, увеличение остаётся пиксельным
+        gl.generateMipmap(GL_TEXTURE_2D_ARRAY);
+        gl.texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_NEAREST_MIPMAP_LINEAR);
+        gl.texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        gl.texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+
+        GlState.bindTexture(GL_TEXTURE_2D_ARRAY, 0);
+    }
+
+    public void bind(int unit) {
+        GlState.bindTexture(unit, GL_TEXTURE_2D_ARRAY, id);
+    }
+
+    public void unbind() {
+        GlState.bindTexture(GL_TEXTURE_2D_ARRAY, 0);
+    }
+
+    public int getLayerCount() {
+        return layers;
+    }
+
+    public void cleanup() {
+        gl.deleteTextures(id);
+    }
+}
@@ -1,57 +1,99 @@
 package com.mygame.engine.graphics.textures;
 
 import com.mygame.Utils.TextureScanner;
-import org.lwjgl.system.MemoryStack;
+import com.mygame.engine.graphics.GlState;
+import com.mygame.engine.graphics.backend.Gl;
+import com.mygame.engine.graphics.backend.GlBackend;
+import org.lwjgl.BufferUtils;
 
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.*;
-import static org.lwjgl.stb.STBImage.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
 
 public class TextureManager {
+    // Порядок слоёв массива блоков совпадает с индексами текстур в ChunkMeshEmitter
+    private static final List<String> BLOCK_LAYERS = List.of(
+            "dirt_podzol_top",
+            "dirt_podzol_side",
+            "dirt",
+            "stone",
+            "oak_top",
+            "oak_side",
+            "coal_ore",
+            "iron_ore",
+            "bedrock",
+            "leaves_oak"
+    );
+
+    private final GlBackend gl = Gl.get();
     private final Map<String, Integer> texturesIds = new HashMap<>();
+    private final TextureArray blockTextures;
 
     public TextureManager() {
-        TextureScanner.scanFolder().forEach(this::loadTexture);
+        Map<String, String> files = TextureScanner.scanFolder();
+
+        List<String> layerFiles = new ArrayList<>();
+        for (String name : BLOCK_LAYERS) {
+            String filepath = files.get(name);
+            if (filepath == null) {
+                throw new RuntimeException("Не найдена текстура блока: " + name);
+            }
+            layerFiles.add(filepath);
+        }
+        blockTextures = new TextureArray(layerFiles);
+
+        // Белый пиксель для однотонных элементов интерфейса
+        createSolidTexture("white", 0xFFFFFFFF);
+
+        // Отдельными 2D-текстурами остаются только не-блочные (прицел и т.п.)
+        files.forEach((name, filepath) -> {
+            if (!BLOCK_LAYERS.contains(name)) {
+                loadTexture(name, filepath);
+            }
+        });
     }
 
     private void loadTexture(String name, String filepath) {
-        ByteBuffer image;
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            IntBuffer widthBuffer = stack.mallocInt(1);
-            IntBuffer heightBuffer = stack.mallocInt(1);
-            IntBuffer channelsBuffer = stack.mallocInt(1);
-
-            stbi_set_flip_vertically_on_load(true);
-            image = stbi_load(filepath, widthBuffer, heightBuffer, channelsBuffer, 4);
-
-            if (image == null) {
-                System.err.println("Не удалось загрузить текстуру: " + filepath);
-                return;
-            }
-            int width = widthBuffer.get();
-            int height = heightBuffer.get();
-            int textureId = glGenTextures();
+        GlBackend.Image image = gl.loadImage(filepath);
+        if (image == null) {
+            System.err.println("Не удалось загрузить текстуру: " + filepath);
+            return;
+        }
+        int textureId = gl.genTextures();
 
-            glBindTexture(GL_TEXTURE_2D, textureId);
+        GlState.bindTexture(GL_TEXTURE_2D, textureId);
 
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
 
-            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0,
-                    GL_RGBA, GL_UNSIGNED_BYTE, image);
+        gl.texImage2D(GL_TEXTURE_2D, 0, GL_RGBA, image.width(), image.height(),
+                GL_RGBA, GL_UNSIGNED_BYTE, image.pixels());
 
-            glBindTexture(GL_TEXTURE_2D, 0);
+        GlState.bindTexture(GL_TEXTURE_2D, 0);
 
-            stbi_image_free(image);
-            texturesIds.put(name, textureId);
-        }
+        gl.freeImage(image);
+        texturesIds.put(name, textureId);
+    }
+
+    // Текстура 1x1 заданного цвета в формате 0xAARRGGBB
+    private void createSolidTexture(String name, int argb) {
+        ByteBuffer pixel = BufferUtils.createByteBuffer(4);
+        pixel.put((byte) (argb >> 16)).put((byte) (argb >> 8)).put((byte) argb).put((byte) (argb >>> 24)).flip();
+
+        int textureId = gl.genTextures();
+        GlState.bindTexture(GL_TEXTURE_2D, textureId);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        gl.texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        gl.texImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 1, 1, GL_RGBA, GL_UNSIGNED_BYTE, pixel);
+        GlState.bindTexture(GL_TEXTURE_2D, 0);
+        texturesIds.put(name, textureId);
     }
 
     public void bindTexture(String name, int unit) {
@@ -60,14 +102,17 @@ public class TextureManager {
             System.err.println("ПРЕДУПРЕЖДЕНИЕ: Текстура не найдена: " + name);
             textureId = 0;
         }
-        unit = GL_TEXTURE0 + unit;
-        glActiveTexture(unit);
-        glBindTexture(GL_TEXTURE_2D, textureId);
+        GlState.bindTexture(unit, GL_TEXTURE_2D, textureId);
+    }
+
+    public void bindBlockTextures(int unit) {
+        blockTextures.bind(unit);
     }
 
     public void cleanup() {
+        blockTextures.cleanup();
         for (int textureId : texturesIds.values()) {
-            glDeleteTextures(textureId);
+            gl.deleteTextures(textureId);
         }
         texturesIds.clear();
     }
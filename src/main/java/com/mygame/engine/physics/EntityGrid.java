@@ -0,0 +1,240 @@
+package com.mygame.engine.physics;
+
+import com.mygame.engine.entity.EntityStore;
+
+import java.util.Arrays;
+
+// Равномерная сетка по XZ для поиска соседей сущностей. Перестраивается целиком раз за тик:
+// id сущностей сортируются по (цвет, клетка, id), так что сущности одной клетки лежат
+// подряд ("прогон"), а хеш-таблица с открытой адресацией отдаёт прогон по координатам клетки.
+// После первого роста массивов перестройка ничего не выделяет.
+//
+// Клетки раскрашены в 3x3 цвета. Сущность взаимодействует только с соседями из своей и восьми
+// соседних клеток, поэтому клетки одного цвета (между ними минимум две клетки) можно обновлять
+// одновременно - их окрестности не пересекаются. Для этого клетка должна быть больше суммы
+// радиусов двух сущностей и их сдвига за тик: размер клетки берётся от самого большого радиуса
+// при каждой перестройке.
+public class EntityGrid {
+    public static final int COLORS = 9;
+    private static final float MIN_CELL_SIZE = 1f;
+    // Запас на сдвиг сущности за тик и на расталкивание
+    private static final float MOVE_MARGIN = 0.5f;
+
+    // Ключ сортировки: цвет (4 бита) | x клетки (20) | z клетки (20) | id сущности (19)
+    private static final int INDEX_BITS = 19;
+    private static final int CELL_BITS = 20;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    private static final int CELL_OFFSET = 1 << (CELL_BITS - 1);
+    private static final long EMPTY = -1L;
+    // Сдвигов вставками на элемент, после которых проще отсортировать заново
+    private static final int INSERTION_BUDGET = 4;
+
+    private int[] ids = new int[16];
+    private long[] keys = new long[16];
+    private int size;
+    // Сколько id лежит в ids в порядке прошлой перестройки
+    private int sortedSize;
+    private float cellSize = MIN_CELL_SIZE;
+    private float maxRadius;
+
+    // Прогон i - сущности [runStart[i], runStart[i + 1]) в клетке (runCellX[i], runCellZ[i])
+    private int[] runStart = new int[17];
+    private int[] runCellX = new int[16];
+    private int[] runCellZ = new int[16];
+    private int runCount;
+    // Прогоны цвета c - [colorStart[c], colorStart[c + 1])
+    private final int[] colorStart = new int[COLORS + 1];
+
+    private long[] tableCells = new long[32];
+    private int[] tableRuns = new int[32];
+
+    public void rebuild(EntityStore store) {
+        size = store.getSize();
+        if (size > INDEX_MASK) {
+            throw new IllegalStateException("Слишком много сущностей для сетки: " + size);
+        }
+        if (keys.length < size) {
+            int capacity = Integer.highestOneBit(size) << 1;
+            keys = new long[capacity];
+            ids = Arrays.copyOf(ids, capacity);
+        }
+
+        float[] radius = store.getRadius();
+        maxRadius = 0f;
+        for (int i = 0; i < size; i++) {
+            maxRadius = Math.max(maxRadius, radius[i]);
+        }
+        cellSize = Math.max(MIN_CELL_SIZE, 2f * maxRadius + MOVE_MARGIN);
+
+        // За тик сущности редко меняют клетку: ключи в прошлом порядке почти отсортированы,
+        // и вставки обходятся дешевле полной сортировки. При смене числа сущностей id
+        // перемешаны - тогда порядок прошлого тика не годится
+        boolean reuseOrder = sortedSize == size;
+        float[] posX = store.getPosX();
+        float[] posZ = store.getPosZ();
+        for (int i = 0; i < size; i++) {
+            int id = reuseOrder ? ids[i] : i;
+            int cx = cell(posX[id]);
+            int cz = cell(posZ[id]);
+            keys[i] = (long) color(cx, cz) << (2 * CELL_BITS + INDEX_BITS)
+                    | cellKey(cx, cz) << INDEX_BITS
+                    | id;
+        }
+        if (!reuseOrder || !insertionSort((long) size * INSERTION_BUDGET)) {
+            Arrays.sort(keys, 0, size);
+        }
+        sortedSize = size;
+
+        runCount = 0;
+        Arrays.fill(colorStart, 0);
+        long previousCell = EMPTY;
+        for (int i = 0; i < size; i++) {
+            long key = keys[i];
+            ids[i] = (int) (key & INDEX_MASK);
+
+            long cell = (key >>> INDEX_BITS) & ((1L << 2 * CELL_BITS) - 1);
+            if (cell != previousCell) {
+                previousCell = cell;
+                addRun(i, (int) (cell >>> CELL_BITS) - CELL_OFFSET, (int) (cell & CELL_MASK) - CELL_OFFSET);
+                colorStart[(int) (key >>> (2 * CELL_BITS + INDEX_BITS)) + 1]++;
+            }
+        }
+        runStart[runCount] = size;
+        for (int c = 0; c < COLORS; c++) {
+            colorStart[c + 1] += colorStart[c];
+        }
+        buildTable();
+    }
+
+    public int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Самый большой радиус на момент перестройки: дальше него соседей искать не нужно
+    public float maxRadius() {
+        return maxRadius;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public int firstRun(int color) {
+        return colorStart[color];
+    }
+
+    public int endRun(int color) {
+        return colorStart[color + 1];
+    }
+
+    public int runStart(int run) {
+        return runStart[run];
+    }
+
+    public int runEnd(int run) {
+        return runStart[run + 1];
+    }
+
+    public int runCellX(int run) {
+        return runCellX[run];
+    }
+
+    public int runCellZ(int run) {
+        return runCellZ[run];
+    }
+
+    // Прогон клетки или -1, если в ней никого нет
+    public int findRun(int cx, int cz) {
+        long cell = cellKey(cx, cz);
+        int mask = tableCells.length - 1;
+        for (int slot = hash(cell) & mask; ; slot = (slot + 1) & mask) {
+            long stored = tableCells[slot];
+            if (stored == cell) return tableRuns[slot];
+            if (stored == EMPTY) return -1;
+        }
+    }
+
+    // id кандидатов из клеток, которые задевает прямоугольник, - не больше out.length;
+    // возвращает их число. Точную проверку делает вызывающий
+    public int query(float minX, float minZ, float maxX, float maxZ, int[] out) {
+        int count = 0;
+        for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+            for (int cz = cell(minZ); cz <= cell(maxZ); cz++) {
+                int run = findRun(cx, cz);
+                if (run < 0) continue;
+                for (int i = runStart[run]; i < runStart[run + 1] && count < out.length; i++) {
+                    out[count++] = ids[i];
+                }
+            }
+        }
+        return count;
+    }
+
+    // Сортировка вставками, пока число сдвигов не превысило budget; false - не уложилась,
+    // ключи остаются переставленными, но тем же набором
+    private boolean insertionSort(long budget) {
+        for (int i = 1; i < size; i++) {
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                j--;
+                budget--;
+            }
+            keys[j + 1] = key;
+            if (budget < 0) return false;
+        }
+        return true;
+    }
+
+    private void addRun(int start, int cx, int cz) {
+        if (runCount + 1 >= runStart.length) {
+            runStart = Arrays.copyOf(runStart, runStart.length * 2);
+            runCellX = Arrays.copyOf(runCellX, runStart.length);
+            runCellZ = Arrays.copyOf(runCellZ, runStart.length);
+        }
+        runStart[runCount] = start;
+        runCellX[runCount] = cx;
+        runCellZ[runCount] = cz;
+        runCount++;
+    }
+
+    private void buildTable() {
+        // Заполненность таблицы не больше половины
+        if (tableCells.length < runCount * 2) {
+            int capacity = Integer.highestOneBit(runCount * 2) << 1;
+            tableCells = new long[capacity];
+            tableRuns = new int[capacity];
+        }
+        Arrays.fill(tableCells, EMPTY);
+
+        int mask = tableCells.length - 1;
+        for (int run = 0; run < runCount; run++) {
+            long cell = cellKey(runCellX[run], runCellZ[run]);
+            int slot = hash(cell) & mask;
+            while (tableCells[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            tableCells[slot] = cell;
+            tableRuns[slot] = run;
+        }
+    }
+
+    private static int color(int cx, int cz) {
+        return Math.floorMod(cx, 3) * 3 + Math.floorMod(cz, 3);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) (cx + CELL_OFFSET) & CELL_MASK) << CELL_BITS | ((long) (cz + CELL_OFFSET) & CELL_MASK);
+    }
+
+    private static int hash(long cell) {
+        long h = cell * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
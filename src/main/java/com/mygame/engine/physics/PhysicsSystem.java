@@ -1,198 +1,286 @@
 package com.mygame.engine.physics;
 
 import com.mygame.engine.entity.Entity;
-import com.mygame.world.block.Block;
-import org.joml.Vector3f;
-
-import java.util.List;
-
+import com.mygame.engine.entity.EntityStore;
+import com.mygame.world.VoxelQuery;
+import com.mygame.world.chunk.Chunk;
+
+// Столкновения с сеткой блоков: каждый запрос перебирает только клетки рядом с AABB сущности
+// и ничего не выделяет. Формы проверок сохранены от перебора списка блоков: по вертикали блок
+// занимает [y, y + 0.25], по горизонтали - ±0.25 от центра.
+// Состояния нет, поэтому один экземпляр общий для всех сущностей и потоков. Сущность задаётся
+// хранилищем и id; перегрузки с Entity - для кода, у которого на руках вид.
 public class PhysicsSystem {
     private static final float GRAVITY = -9.8f;
     private static final float STEP_HEIGHT = 0.25f;
     private static final float HALF_BLOCK = 0.25f;
 
-    public void update(float deltaTime, Entity entity, List<Block> blocks) {
-        entity.getPrevPosition().set(entity.getPosition());
-        applyGravity(deltaTime, entity, blocks);
-        verticalCollision(entity, blocks);
-        handleStep(entity, blocks);
+    private static PhysicsSystem instance;
+
+    private PhysicsSystem() {
+    }
+
+    public static synchronized PhysicsSystem getInstance() {
+        if (instance == null) {
+            instance = new PhysicsSystem();
+        }
+        return instance;
     }
 
-    private boolean aabbIntersect(
-            float minAx, float maxAx,
-            float minAy, float maxAy,
-            float minAz, float maxAz,
-            float minBx, float maxBx,
-            float minBy, float maxBy,
-            float minBz, float maxBz
-    ) {
-        return maxAx > minBx && minAx < maxBx &&
-                maxAy > minBy && minAy < maxBy &&
-                maxAz > minBz && minAz < maxBz;
+    public void update(float deltaTime, Entity entity, VoxelQuery voxels) {
+        update(deltaTime, entity.getStore(), entity.getId(), voxels);
     }
 
-    private void getBlockAABB(Block block, Vector3f min, Vector3f max) {
-        Vector3f p = block.getPosition();
+    public void update(float deltaTime, EntityStore store, int id, VoxelQuery voxels) {
+        applyGravity(deltaTime, store, id, voxels);
+        verticalCollision(store, id, voxels);
+        handleStep(store, id, voxels);
+    }
 
-        min.set(
-                p.x - HALF_BLOCK,
-                p.y,
-                p.z - HALF_BLOCK
-        );
+    // Диапазон клеток, центры которых могут попасть в [min - extent, max + extent].
+    // Запас в одну клетку с каждой стороны, чтобы округление не потеряло граничную - точную
+    // проверку делает вызывающий код теми же выражениями, что и раньше.
+    private static int firstCell(float min, float extent) {
+        return (int) Math.floor((min - extent) / Chunk.BLOCK_SIZE) - 1;
+    }
 
-        max.set(
-                p.x + HALF_BLOCK,
-                p.y + HALF_BLOCK,
-                p.z + HALF_BLOCK
-        );
+    private static int lastCell(float max, float extent) {
+        return (int) Math.ceil((max + extent) / Chunk.BLOCK_SIZE) + 1;
     }
 
-    private void getEntityAABB(Entity e, Vector3f min, Vector3f max) {
-        min.set(
-                e.getPosition().x - e.getRadius(),
-                e.getPosition().y,
-                e.getPosition().z - e.getRadius()
-        );
-
-        max.set(
-                e.getPosition().x + e.getRadius(),
-                e.getPosition().y + e.getHeight(),
-                e.getPosition().z + e.getRadius()
-        );
+    private static float cellCenter(int cell) {
+        return cell * Chunk.BLOCK_SIZE;
     }
 
-    public void applyGravity(float deltaTime, Entity entity, List<Block> blocks) {
-        entity.getVelocity().y += GRAVITY * deltaTime;
+    public void applyGravity(float deltaTime, EntityStore store, int id, VoxelQuery voxels) {
+        float[] posY = store.getPosY();
+        float[] velY = store.getVelY();
+        velY[id] += GRAVITY * deltaTime;
 
-        float newY = entity.getPosition().y + entity.getVelocity().y * deltaTime;
+        float newY = posY[id] + velY[id] * deltaTime;
 
-        float groundedY = findGroundY(entity, blocks);
+        float groundedY = findGroundY(store, id, voxels);
 
         if (newY <= groundedY) {
-            entity.getPosition().y = groundedY;
-            entity.getVelocity().y = 0;
-            entity.setOnGround(true);
+            posY[id] = groundedY;
+            velY[id] = 0;
+            store.setOnGround(id, true);
         } else {
-            entity.getPosition().y = newY;
-            entity.setOnGround(false);
+            posY[id] = newY;
+            store.setOnGround(id, false);
         }
     }
 
-    private float findGroundY(Entity entity, List<Block> blocks) {
-        float best = Float.NEGATIVE_INFINITY;
-
-        for (Block b : blocks) {
-            Vector3f bp = b.getPosition();
-
-            boolean overlapX =
-                    entity.getPosition().x + entity.getRadius() > bp.x - HALF_BLOCK &&
-                            entity.getPosition().x - entity.getRadius() < bp.x + HALF_BLOCK;
-
-            boolean overlapZ =
-                    entity.getPosition().z + entity.getRadius() > bp.z - HALF_BLOCK &&
-                            entity.getPosition().z - entity.getRadius() < bp.z + HALF_BLOCK;
-
-            if (!overlapX || !overlapZ) continue;
-
-            float top = bp.y + HALF_BLOCK;
-
-            if (top <= entity.getPosition().y + 0.05f && top > best) {
-                best = top;
+    // Самый высокий верх блока под сущностью, не выше ног + 0.05. Слои идут сверху вниз,
+    // поэтому первый найденный блок и есть ответ
+    private float findGroundY(EntityStore store, int id, VoxelQuery voxels) {
+        float x = store.getPosX()[id];
+        float y = store.getPosY()[id];
+        float z = store.getPosZ()[id];
+        float radius = store.getRadius()[id];
+        int minX = firstCell(x - radius, HALF_BLOCK);
+        int maxX = lastCell(x + radius, HALF_BLOCK);
+        int minZ = firstCell(z - radius, HALF_BLOCK);
+        int maxZ = lastCell(z + radius, HALF_BLOCK);
+        int topY = Math.min(Chunk.HEIGHT - 1, lastCell(y + 0.05f, 0f));
+
+        for (int cy = topY; cy >= 0; cy--) {
+            float top = cellCenter(cy) + HALF_BLOCK;
+            if (top > y + 0.05f) continue;
+
+            for (int cx = minX; cx <= maxX; cx++) {
+                float bx = cellCenter(cx);
+                boolean overlapX = x + radius > bx - HALF_BLOCK && x - radius < bx + HALF_BLOCK;
+                if (!overlapX) continue;
+
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    float bz = cellCenter(cz);
+                    boolean overlapZ = z + radius > bz - HALF_BLOCK && z - radius < bz + HALF_BLOCK;
+                    if (overlapZ && voxels.isSolid(cx, cy, cz)) {
+                        return top;
+                    }
+                }
             }
         }
-        return best;
+        return Float.NEGATIVE_INFINITY;
     }
 
-    public void verticalCollision(Entity entity, List<Block> blocks) {
-        if (entity.getVelocity().y > 0) {
-            for (Block block : blocks) {
-                if (block.getPosition().y - entity.getHeight() >= entity.getPosition().y + entity.getRadius()) {
-                    boolean insideX = entity.getPosition().x + entity.getRadius() >=
-                            block.getPosition().x - entity.getRadius() &&
-                            entity.getPosition().x - entity.getRadius() <= block.getPosition().x + entity.getRadius();
-                    boolean insideZ = entity.getPosition().z + entity.getRadius() >=
-                            block.getPosition().z - entity.getRadius() &&
-                            entity.getPosition().z - entity.getRadius() <= block.getPosition().z + entity.getRadius();
-
-                    if (!insideX || !insideZ) {
-                        continue;
-                    }
-
-                    if (entity.getPosition().y + entity.getHeight() + 0.25f >= block.getPosition().y - 0.25f) {
-                        entity.getVelocity().y = 0;
+    // Гасит скорость прыжка о блок над головой; диапазоны условий - как у прежней проверки
+    public void verticalCollision(EntityStore store, int id, VoxelQuery voxels) {
+        if (store.getVelY()[id] <= 0) return;
+
+        float x = store.getPosX()[id];
+        float y = store.getPosY()[id];
+        float z = store.getPosZ()[id];
+        float radius = store.getRadius()[id];
+        float height = store.getHeight()[id];
+        int minX = firstCell(x - radius, radius);
+        int maxX = lastCell(x + radius, radius);
+        int minZ = firstCell(z - radius, radius);
+        int maxZ = lastCell(z + radius, radius);
+        int minY = Math.max(0, firstCell(y + radius + height, 0f));
+        int maxY = Math.min(Chunk.HEIGHT - 1, lastCell(y + height + 0.5f, 0f));
+
+        for (int cy = minY; cy <= maxY; cy++) {
+            float by = cellCenter(cy);
+            if (by - height < y + radius) continue;
+            if (y + height + 0.25f < by - 0.25f) continue;
+
+            for (int cx = minX; cx <= maxX; cx++) {
+                float bx = cellCenter(cx);
+                boolean insideX = x + radius >= bx - radius && x - radius <= bx + radius;
+                if (!insideX) continue;
+
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    float bz = cellCenter(cz);
+                    boolean insideZ = z + radius >= bz - radius && z - radius <= bz + radius;
+                    if (insideZ && voxels.isSolid(cx, cy, cz)) {
+                        store.getVelY()[id] = 0;
+                        return;
                     }
                 }
             }
         }
     }
 
-    public void moveHorizontal(float dx, float dz, Entity entity, List<Block> blocks) {
-        entity.getPosition().x += dx;
-        if (collides(entity, blocks)) {
-            entity.getPosition().x -= dx;
+    public void moveHorizontal(float dx, float dz, Entity entity, VoxelQuery voxels) {
+        moveHorizontal(dx, dz, entity.getStore(), entity.getId(), voxels);
+    }
+
+    public void moveHorizontal(float dx, float dz, EntityStore store, int id, VoxelQuery voxels) {
+        float[] posX = store.getPosX();
+        float[] posZ = store.getPosZ();
+
+        posX[id] += dx;
+        if (collides(store, id, voxels)) {
+            posX[id] -= dx;
         }
 
-        entity.getPosition().z += dz;
-        if (collides(entity, blocks)) {
-            entity.getPosition().z -= dz;
+        posZ[id] += dz;
+        if (collides(store, id, voxels)) {
+            posZ[id] -= dz;
         }
     }
 
-    private boolean collides(Entity entity, List<Block> blocks) {
-        Vector3f emin = new Vector3f();
-        Vector3f emax = new Vector3f();
-        Vector3f bmin = new Vector3f();
-        Vector3f bmax = new Vector3f();
-
-        getEntityAABB(entity, emin, emax);
-
-        for (Block block : blocks) {
-            getBlockAABB(block, bmin, bmax);
-
-            if (aabbIntersect(
-                    emin.x, emax.x,
-                    emin.y, emax.y,
-                    emin.z, emax.z,
-                    bmin.x, bmax.x,
-                    bmin.y, bmax.y,
-                    bmin.z, bmax.z
-            )) {
-                return true;
+    private boolean collides(EntityStore store, int id, VoxelQuery voxels) {
+        float radius = store.getRadius()[id];
+        float minX = store.getPosX()[id] - radius;
+        float maxX = store.getPosX()[id] + radius;
+        float minY = store.getPosY()[id];
+        float maxY = store.getPosY()[id] + store.getHeight()[id];
+        float minZ = store.getPosZ()[id] - radius;
+        float maxZ = store.getPosZ()[id] + radius;
+
+        int firstX = firstCell(minX, HALF_BLOCK);
+        int lastX = lastCell(maxX, HALF_BLOCK);
+        int firstY = Math.max(0, firstCell(minY, HALF_BLOCK));
+        int lastY = Math.min(Chunk.HEIGHT - 1, lastCell(maxY, 0f));
+        int firstZ = firstCell(minZ, HALF_BLOCK);
+        int lastZ = lastCell(maxZ, HALF_BLOCK);
+
+        for (int x = firstX; x <= lastX; x++) {
+            float bx = cellCenter(x);
+            if (!(maxX > bx - HALF_BLOCK && minX < bx + HALF_BLOCK)) continue;
+
+            for (int y = firstY; y <= lastY; y++) {
+                float by = cellCenter(y);
+                if (!(maxY > by && minY < by + HALF_BLOCK)) continue;
+
+                for (int z = firstZ; z <= lastZ; z++) {
+                    float bz = cellCenter(z);
+                    if (!(maxZ > bz - HALF_BLOCK && minZ < bz + HALF_BLOCK)) continue;
+
+                    if (voxels.isSolid(x, y, z)) {
+                        return true;
+                    }
+                }
             }
         }
         return false;
     }
 
-    public void handleStep(Entity entity, List<Block> blocks) {
-        Vector3f moveDelta = new Vector3f(entity.getVelocity());
-        moveDelta.y = 0;
-        Vector3f newPos = new Vector3f(entity.getPosition()).add(moveDelta);
-
-        float playerFeet = entity.getPosition().y;
-
-        for (Block block : blocks) {
-            Vector3f bp = block.getPosition();
-
-            boolean overlapX = newPos.x + entity.getRadius() > bp.x - 0.25f &&
-                    newPos.x - entity.getRadius() < bp.x + 0.25f;
-            boolean overlapZ = newPos.z + entity.getRadius() > bp.z - 0.25f &&
-                    newPos.z - entity.getRadius() < bp.z + 0.25f;
-
-            if (!overlapX || !overlapZ) continue;
-
-            float blockTop = bp.y + 0.25f;
-            float stepDiff = blockTop - playerFeet;
-
-            if (stepDiff > 0 && stepDiff <= STEP_HEIGHT) {
-                entity.getPosition().y += stepDiff;
-                entity.setOnGround(true);
-            } else if (stepDiff > STEP_HEIGHT) {
-                newPos.x = entity.getPosition().x;
-                newPos.z = entity.getPosition().z;
+    // Подъём на ступеньку не выше STEP_HEIGHT: берётся самая высокая ступенька под новой
+    // позицией, один раз. Блок выше ступеньки в любой клетке отменяет горизонтальный сдвиг.
+    public void handleStep(EntityStore store, int id, VoxelQuery voxels) {
+        float velX = store.getVelX()[id];
+        float velZ = store.getVelZ()[id];
+        float radius = store.getRadius()[id];
+        float newX = store.getPosX()[id] + velX;
+        float newZ = store.getPosZ()[id] + velZ;
+        float playerFeet = store.getPosY()[id];
+
+        int minX = firstCell(newX - radius, HALF_BLOCK);
+        int maxX = lastCell(newX + radius, HALF_BLOCK);
+        int minZ = firstCell(newZ - radius, HALF_BLOCK);
+        int maxZ = lastCell(newZ + radius, HALF_BLOCK);
+        int minY = Math.max(0, firstCell(playerFeet, HALF_BLOCK));
+
+        // Без горизонтальной скорости отмена сдвига ничего не меняет - выше ступеньки не смотрим
+        boolean moving = velX != 0 || velZ != 0;
+        float step = 0f;
+        boolean blocked = false;
+        for (int x = minX; x <= maxX; x++) {
+            float bx = cellCenter(x);
+            boolean overlapX = newX + radius > bx - 0.25f && newX - radius < bx + 0.25f;
+            if (!overlapX) continue;
+
+            for (int z = minZ; z <= maxZ; z++) {
+                float bz = cellCenter(z);
+                boolean overlapZ = newZ + radius > bz - 0.25f && newZ - radius < bz + 0.25f;
+                if (!overlapZ) continue;
+
+                for (int y = minY; y < Chunk.HEIGHT; y++) {
+                    float stepDiff = cellCenter(y) + 0.25f - playerFeet;
+                    if (stepDiff <= 0) continue;
+                    // Выше ступеньки искать нечего, если сдвиг уже отменён или его нет
+                    if (stepDiff > STEP_HEIGHT && (blocked || !moving)) break;
+                    if (!voxels.isSolid(x, y, z)) continue;
+
+                    if (stepDiff <= STEP_HEIGHT) {
+                        step = Math.max(step, stepDiff);
+                    } else {
+                        blocked = true;
+                        break;
+                    }
+                }
             }
         }
 
-        entity.getPosition().x = newPos.x;
-        entity.getPosition().z = newPos.z;
+        if (step > 0) {
+            store.getPosY()[id] += step;
+            store.setOnGround(id, true);
+        }
+        if (!blocked) {
+            store.getPosX()[id] = newX;
+            store.getPosZ()[id] = newZ;
+        }
+    }
+
+    // Расталкивает две пересекающиеся сущности по горизонтали: каждая сдвигается на половину
+    // перекрытия вдоль оси, где оно меньше. Сдвиг проверяется о блоки как обычное движение.
+    // Возвращает true, если сущности пересекались.
+    public boolean separate(EntityStore store, int a, int b, VoxelQuery voxels) {
+        float[] posX = store.getPosX();
+        float[] posY = store.getPosY();
+        float[] posZ = store.getPosZ();
+        float[] height = store.getHeight();
+        if (posY[a] >= posY[b] + height[b] || posY[b] >= posY[a] + height[a]) return false;
+
+        float reach = store.getRadius()[a] + store.getRadius()[b];
+        float overlapX = reach - Math.abs(posX[a] - posX[b]);
+        if (overlapX <= 0) return false;
+        float overlapZ = reach - Math.abs(posZ[a] - posZ[b]);
+        if (overlapZ <= 0) return false;
+
+        if (overlapX < overlapZ) {
+            float push = posX[a] < posX[b] ? -overlapX * 0.5f : overlapX * 0.5f;
+            moveHorizontal(push, 0, store, a, voxels);
+            moveHorizontal(-push, 0, store, b, voxels);
+        } else {
+            float push = posZ[a] < posZ[b] ? -overlapZ * 0.5f : overlapZ * 0.5f;
+            moveHorizontal(0, push, store, a, voxels);
+            moveHorizontal(0, -push, store, b, voxels);
+        }
+        return true;
     }
 }
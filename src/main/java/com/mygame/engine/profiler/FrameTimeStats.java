@@ -0,0 +1,40 @@
+package com.mygame.engine.profiler;
+
+import java.util.Arrays;
+
+// Скользящее окно времён кадра для перцентилей. Писатель и читатель - один поток (рендер).
+public class FrameTimeStats {
+    private final float[] samples;
+    private final float[] sorted;
+    private int next;
+    private int count;
+    private boolean sortedValid;
+
+    public FrameTimeStats(int window) {
+        samples = new float[window];
+        sorted = new float[window];
+    }
+
+    public void add(float frameMs) {
+        samples[next] = frameMs;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sortedValid = false;
+    }
+
+    // p от 0 до 1, ближайший ранг; 0, пока нет ни одного кадра
+    public float percentile(float p) {
+        if (count == 0) return 0f;
+        if (!sortedValid) {
+            System.arraycopy(samples, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            sortedValid = true;
+        }
+        int rank = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,225 @@
+package com.mygame.engine.profiler;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Иерархический профайлер кадра. CPU-области открываются begin/end в любом потоке (у каждого
+// потока свой стек), GPU-время приходит готовым из GpuProfiler. Пока идёт запись, все области и счётчики
+// копятся в список и сохраняются в формате Chrome trace (chrome://tracing, Perfetto).
+public class Profiler {
+    private static final int MAX_DEPTH = 32;
+    private static final int FRAME_WINDOW = 240;
+    // Ограничение записи, чтобы забытая запись не съела всю память
+    private static final int MAX_CAPTURE_EVENTS = 500_000;
+    // Сглаживание значений для оверлея
+    private static final float SMOOTHING = 0.1f;
+    public static final String GPU_THREAD = "GPU";
+
+    private static Profiler instance;
+
+    // Имя области -> накопленное с прошлого кадра время и сглаженное значение за кадр
+    private final Map<String, ScopeStats> scopes = new ConcurrentSkipListMap<>();
+    // Последние значения счётчиков (дальность прорисовки и т.п.), пишутся из любого потока
+    private final Map<String, Double> counters = new ConcurrentSkipListMap<>();
+    private final ThreadLocal<ScopeStack> stacks = ThreadLocal.withInitial(ScopeStack::new);
+    @Getter
+    private final FrameTimeStats frameTimes = new FrameTimeStats(FRAME_WINDOW);
+    private final List<Event> capture = new ArrayList<>();
+    private final long originNanos = System.nanoTime();
+    @Getter
+    private volatile boolean overlayEnabled;
+    @Getter
+    private volatile boolean capturing;
+
+    // durationNanos < 0 - значение счётчика value, а не область
+    private record Event(String name, String thread, long startNanos, long durationNanos, double value) {
+    }
+
+    public static class ScopeStats {
+        private final AtomicLong pendingNanos = new AtomicLong();
+        @Getter
+        private volatile int depth;
+        @Getter
+        private volatile boolean gpu;
+        @Getter
+        private volatile float smoothedMs;
+    }
+
+    private static final class ScopeStack {
+        private final String[] names = new String[MAX_DEPTH];
+        private final long[] starts = new long[MAX_DEPTH];
+        private final String thread = Thread.currentThread().getName();
+        private int depth;
+    }
+
+    private Profiler() {
+    }
+
+    public static synchronized Profiler getInstance() {
+        if (instance == null) {
+            instance = new Profiler();
+        }
+        return instance;
+    }
+
+    public void begin(String name) {
+        ScopeStack stack = stacks.get();
+        if (stack.depth == MAX_DEPTH) {
+            throw new IllegalStateException("Слишком глубокая вложенность областей профайлера: " + name);
+        }
+        stack.names[stack.depth] = name;
+        stack.starts[stack.depth] = System.nanoTime();
+        stack.depth++;
+    }
+
+    public void end() {
+        long now = System.nanoTime();
+        ScopeStack stack = stacks.get();
+        if (stack.depth == 0) {
+            throw new IllegalStateException("end() без парного begin()");
+        }
+        stack.depth--;
+        String name = stack.names[stack.depth];
+        long start = stack.starts[stack.depth];
+        record(name, stack.thread, stack.depth, false, start, now - start);
+    }
+
+    // Результат GPU-таймера; startNanos - время CPU, когда запрос был открыт
+    public void recordGpu(String name, long startNanos, long durationNanos) {
+        record(name, GPU_THREAD, 0, true, startNanos, durationNanos);
+    }
+
+    private void record(String name, String thread, int depth, boolean gpu, long startNanos, long durationNanos) {
+        ScopeStats stats = scopes.computeIfAbsent(gpu ? "gpu:" + name : name, key -> new ScopeStats());
+        stats.depth = depth;
+        stats.gpu = gpu;
+        stats.pendingNanos.addAndGet(durationNanos);
+
+        if (capturing) {
+            synchronized (capture) {
+                if (capture.size() < MAX_CAPTURE_EVENTS) {
+                    capture.add(new Event(name, thread, startNanos, durationNanos, 0));
+                }
+            }
+        }
+    }
+
+    public void counter(String name, double value) {
+        counters.put(name, value);
+        if (capturing) {
+            synchronized (capture) {
+                if (capture.size() < MAX_CAPTURE_EVENTS) {
+                    capture.add(new Event(name, Thread.currentThread().getName(), System.nanoTime(), -1, value));
+                }
+            }
+        }
+    }
+
+    public Map<String, Double> getCounters() {
+        return counters;
+    }
+
+    // Сглаженное время области за кадр; читать можно из любого потока, 0 - если области ещё не было
+    public float getSmoothedMs(String name) {
+        ScopeStats stats = scopes.get(name);
+        return stats != null ? stats.smoothedMs : 0f;
+    }
+
+    // Суммарное GPU-время всех областей за кадр
+    public float getSmoothedGpuMs() {
+        float total = 0f;
+        for (ScopeStats stats : scopes.values()) {
+            if (stats.gpu) {
+                total += stats.smoothedMs;
+            }
+        }
+        return total;
+    }
+
+    // Вызывается потоком рендера раз за кадр: переводит накопленное время областей в мс за кадр
+    public void endFrame(long frameNanos) {
+        frameTimes.add(frameNanos / 1_000_000f);
+        for (ScopeStats stats : scopes.values()) {
+            float ms = stats.pendingNanos.getAndSet(0) / 1_000_000f;
+            stats.smoothedMs += (ms - stats.smoothedMs) * SMOOTHING;
+        }
+    }
+
+    // Области в порядке имён; значения - сглаженное время за кадр
+    public Map<String, ScopeStats> getScopes() {
+        return scopes;
+    }
+
+    public void toggleOverlay() {
+        overlayEnabled = !overlayEnabled;
+    }
+
+    // Первый вызов начинает запись, второй сохраняет её в profiles/
+    public void toggleCapture() {
+        if (!capturing) {
+            synchronized (capture) {
+                capture.clear();
+            }
+            capturing = true;
+            System.out.println("Профайлер: запись начата");
+            return;
+        }
+
+        capturing = false;
+        Path file = Paths.get("profiles", "capture-" + System.currentTimeMillis() + ".json");
+        try {
+            writeChromeTrace(file);
+            System.out.printf("Профайлер: запись сохранена в %s, кадр p50 %.2f мс, p99 %.2f мс%n",
+                    file, frameTimes.percentile(0.5f), frameTimes.percentile(0.99f));
+        } catch (IOException e) {
+            System.err.println("Не удалось сохранить запись профайлера: " + file);
+        }
+    }
+
+    public void writeChromeTrace(Path file) throws IOException {
+        List<Event> events;
+        synchronized (capture) {
+            events = new ArrayList<>(capture);
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\"traceEvents\":[\n");
+            for (int i = 0; i < events.size(); i++) {
+                Event event = events.get(i);
+                String separator = i + 1 < events.size() ? "," : "";
+                if (event.durationNanos() < 0) {
+                    out.write(String.format(Locale.ROOT,
+                            "{\"name\":\"%s\",\"ph\":\"C\",\"pid\":1,\"ts\":%.3f,\"args\":{\"value\":%s}}%s%n",
+                            escape(event.name()), (event.startNanos() - originNanos) / 1000.0, event.value(), separator));
+                    continue;
+                }
+                // Chrome trace ждёт микросекунды; tid - строка, чтобы GPU шёл отдельной дорожкой
+                out.write(String.format(Locale.ROOT,
+                        "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":\"%s\",\"ts\":%.3f,\"dur\":%.3f}%s%n",
+                        escape(event.name()), escape(event.thread()),
+                        (event.startNanos() - originNanos) / 1000.0, event.durationNanos() / 1000.0,
+                        separator));
+            }
+            out.write("]}\n");
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -1,6 +1,9 @@
 package com.mygame.game;
 
+import com.mygame.engine.FrameSnapshot;
 import com.mygame.engine.InputHandler;
+import com.mygame.engine.PlayerController;
+import com.mygame.engine.TickScheduler;
 import com.mygame.engine.Window;
 import com.mygame.engine.graphics.Camera;
 import com.mygame.engine.graphics.Renderer;
@@ -16,9 +19,22 @@ public abstract class Game {
     @Getter
     protected World world;
     protected InputHandler inputHandler;
+    protected PlayerController playerController;
     protected PhysicsSystem physicsSystem;
 
     public abstract void init(Window window);
-    public abstract void update(float deltaTime);
-    public abstract void render();
+
+    // Главный поток: опрос ввода после обработки событий окна
+    public abstract void sampleInput();
+
+    // Поток симуляции: вся симуляция - системы планировщика, после тиков публикуется снимок
+    public abstract void registerSystems(TickScheduler scheduler);
+    public abstract FrameSnapshot captureFrame(long tick, long timeNanos);
+
+    // Главный поток: отрисовка снимка, alpha - доля тика для интерполяции
+    public abstract void render(FrameSnapshot snapshot, float alpha);
+
+    // Главный поток, после остановки симуляции
+    public void shutdown() {
+    }
 }
@@ -1,16 +1,35 @@
 package com.mygame.game;
 
+import com.mygame.engine.FrameSnapshot;
 import com.mygame.engine.InputHandler;
+import com.mygame.engine.InputRecording;
+import com.mygame.engine.PlayerController;
+import com.mygame.engine.PlayerInput;
+import com.mygame.engine.TickScheduler;
+import com.mygame.engine.TickSystem;
 import com.mygame.engine.Window;
 import com.mygame.engine.graphics.Camera;
 import com.mygame.engine.graphics.Renderer;
 import com.mygame.engine.physics.PhysicsSystem;
 import com.mygame.world.World;
-import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class SandboxGame extends Game {
-    private final float physicsTick = 1.0f / 60.0f;
-    private float accumulator = 0;
+    public static final int INPUT_TICK_RATE = 60;
+
+    // Куда сохранить запись сессии для ReplayBenchmark; null - не записывать
+    private final Path recordTo;
+    private InputRecording recording;
+
+    public SandboxGame() {
+        this(null);
+    }
+
+    public SandboxGame(Path recordTo) {
+        this.recordTo = recordTo;
+    }
 
     @Override
     public void init(Window window) {
@@ -18,31 +37,59 @@ public class SandboxGame extends Game {
         camera = new Camera();
         world = new World();
 
-        physicsSystem = new PhysicsSystem();
-        inputHandler = new InputHandler(window, world.getPlayer(), physicsSystem, world);
+        physicsSystem = PhysicsSystem.getInstance();
+        inputHandler = new InputHandler(window);
+        playerController = new PlayerController(world.getPlayer(), physicsSystem, world);
+        if (recordTo != null) {
+            recording = new InputRecording();
+        }
         renderer = new Renderer(window);
     }
 
     @Override
-    public void update(float deltaTime) {
-        accumulator += deltaTime;
-        while (accumulator >= physicsTick) {
-            physicsSystem.update(physicsTick, world.getPlayer(), world.getNearbyBlocks(world.getPlayer().getPosition()));
-            accumulator -= physicsTick;
+    public void sampleInput() {
+        inputHandler.sample();
+    }
+
+    // Ввод до мира: физику игрока делает обновление сущностей мира, один раз за тик
+    @Override
+    public void registerSystems(TickScheduler scheduler) {
+        scheduler.register(new TickSystem("input", INPUT_TICK_RATE, this::applyInput));
+        world.registerSystems(scheduler);
+    }
+
+    private void applyInput(float deltaTime) {
+        PlayerInput input = inputHandler.nextCommand();
+        if (recording != null) {
+            recording.record(input, world.getGovernor());
         }
-        inputHandler.processInput(deltaTime, world.getNearbyBlocks(world.getPlayer().getPosition()));
-        camera.setPosition(world.getPlayer().getEyePosition());
-        world.update(deltaTime);
-        camera.update(world.getPlayer());
+        playerController.apply(input, deltaTime, world);
+    }
+
+    @Override
+    public FrameSnapshot captureFrame(long tick, long timeNanos) {
+        return world.captureFrame(tick, timeNanos);
     }
 
     @Override
-    public void render() {
-        float alpha = accumulator / physicsTick;
-        Vector3f renderPos = new Vector3f(world.getPlayer().getPrevPosition())
-                .lerp(world.getPlayer().getPosition(), alpha);
+    public void render(FrameSnapshot snapshot, float alpha) {
+        snapshot.eye().interpolate(alpha, camera.getPosition());
+        camera.update(snapshot.eye().interpolateYaw(alpha), snapshot.interpolatePitch(alpha));
 
         renderer.beginScene(camera, window.getWidth(), window.getHeight());
-        world.render(renderer, renderPos);
+        world.render(renderer, snapshot, alpha);
+    }
+
+    @Override
+    public void shutdown() {
+        if (recording == null) return;
+
+        recording.setOutcome(InputRecording.Outcome.of(world));
+        try {
+            recording.save(recordTo);
+            System.out.printf("Запись ввода: %d тиков сохранено в %s%n", recording.getTicks().size(), recordTo);
+        } catch (IOException e) {
+            System.err.println("Не удалось сохранить запись ввода: " + recordTo);
+        }
     }
 }
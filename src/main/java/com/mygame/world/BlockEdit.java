@@ -0,0 +1,6 @@
+package com.mygame.world;
+
+// Изменение блока мира в координатах сетки блоков. Пока блоки можно только разрушать,
+// поэтому запись - это клетка, ставшая воздухом.
+public record BlockEdit(int x, int y, int z) {
+}
@@ -0,0 +1,20 @@
+package com.mygame.world;
+
+// Уровень тикета на чанк, от слабого к сильному. Уровень чанка - самый сильный из тикетов,
+// которые его покрывают; чанк без тикетов выгружается.
+public enum ChunkLevel {
+    // Не загружает, но не даёт выгрузить уже загруженный чанк
+    KEEP_IN_MEMORY,
+    // Загружает, сущности в чанке обновляются
+    SIMULATE,
+    // Загружает, строит меш и отдаёт его рендеру
+    RENDER;
+
+    public boolean loads() {
+        return this != KEEP_IN_MEMORY;
+    }
+
+    public boolean atLeast(ChunkLevel level) {
+        return compareTo(level) >= 0;
+    }
+}
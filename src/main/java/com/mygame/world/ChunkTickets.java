@@ -0,0 +1,125 @@
+package com.mygame.world;
+
+import com.mygame.world.chunk.ChunkPos;
+import lombok.Getter;
+
+import java.util.*;
+
+// Тикеты на чанки от любого числа наблюдателей: игроков, зрителей, области спавна, скриптов.
+// Тикет покрывает квадрат чанков радиуса radius вокруг своей точки. На каждый чанк хранится
+// по счётчику тикетов каждого уровня, так что перекрывающиеся тикеты делят чанки, а чанк
+// держится, пока его покрывает хоть один.
+// Живёт в потоке симуляции; из параллельных обработчиков сущностей только читается.
+public class ChunkTickets {
+    private static final ChunkLevel[] BY_ORDINAL = ChunkLevel.values();
+    private static final int LEVELS = BY_ORDINAL.length;
+
+    public final class Ticket {
+        @Getter
+        private final ChunkLevel level;
+        // Точка наблюдателя в координатах мира - по ней же выбирается детализация мешей
+        @Getter
+        private float x;
+        @Getter
+        private float z;
+        @Getter
+        private int chunkX;
+        @Getter
+        private int chunkZ;
+        @Getter
+        private int radius;
+        private boolean released;
+
+        private Ticket(ChunkLevel level, float x, float z, int radius) {
+            this.level = level;
+            this.x = x;
+            this.z = z;
+            this.chunkX = World.worldToChunk(x);
+            this.chunkZ = World.worldToChunk(z);
+            this.radius = radius;
+        }
+
+        // Счётчики чанков пересчитываются, только если сменился чанк или радиус
+        public void update(float x, float z, int radius) {
+            if (released) {
+                throw new IllegalStateException("Тикет уже отпущен");
+            }
+            this.x = x;
+            this.z = z;
+            int chunkX = World.worldToChunk(x);
+            int chunkZ = World.worldToChunk(z);
+            if (chunkX == this.chunkX && chunkZ == this.chunkZ && radius == this.radius) return;
+
+            apply(this, -1);
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.radius = radius;
+            apply(this, 1);
+        }
+
+        public void moveTo(float x, float z) {
+            update(x, z, radius);
+        }
+
+        public void release() {
+            if (released) return;
+            released = true;
+            apply(this, -1);
+            tickets.remove(this);
+        }
+    }
+
+    private final Map<ChunkPos, int[]> counts = new HashMap<>();
+    private final List<Ticket> tickets = new ArrayList<>();
+
+    public Ticket add(ChunkLevel level, float x, float z, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Радиус тикета не может быть отрицательным: " + radius);
+        }
+        Ticket ticket = new Ticket(level, x, z, radius);
+        tickets.add(ticket);
+        apply(ticket, 1);
+        return ticket;
+    }
+
+    // Тикеты в порядке добавления - в нём же загружаются их чанки
+    public List<Ticket> getTickets() {
+        return Collections.unmodifiableList(tickets);
+    }
+
+    // Самый сильный уровень тикетов на чанке или null, если тикетов нет
+    public ChunkLevel getLevel(int chunkX, int chunkZ) {
+        int[] levels = counts.get(new ChunkPos(chunkX, chunkZ));
+        if (levels == null) return null;
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            if (levels[level] > 0) return BY_ORDINAL[level];
+        }
+        return null;
+    }
+
+    public boolean isAtLeast(int chunkX, int chunkZ, ChunkLevel level) {
+        ChunkLevel actual = getLevel(chunkX, chunkZ);
+        return actual != null && actual.atLeast(level);
+    }
+
+    private void apply(Ticket ticket, int delta) {
+        int level = ticket.level.ordinal();
+        for (int dx = -ticket.radius; dx <= ticket.radius; dx++) {
+            for (int dz = -ticket.radius; dz <= ticket.radius; dz++) {
+                ChunkPos pos = new ChunkPos(ticket.chunkX + dx, ticket.chunkZ + dz);
+                int[] levels = counts.computeIfAbsent(pos, key -> new int[LEVELS]);
+                levels[level] += delta;
+                if (isEmpty(levels)) {
+                    counts.remove(pos);
+                }
+            }
+        }
+    }
+
+    private static boolean isEmpty(int[] levels) {
+        for (int count : levels) {
+            if (count != 0) return false;
+        }
+        return true;
+    }
+}
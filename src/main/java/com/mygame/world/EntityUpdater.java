@@ -0,0 +1,163 @@
+package com.mygame.world;
+
+import com.mygame.engine.entity.EntityStore;
+import com.mygame.engine.physics.EntityGrid;
+import com.mygame.engine.physics.PhysicsSystem;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.stream.IntStream;
+
+// Обновление сущностей по цветам сетки EntityGrid: девять фаз подряд, клетки одной фазы
+// независимы и идут параллельно. Внутри клетки порядок - по id, поэтому результат совпадает
+// с последовательным прогоном тех же фаз.
+//
+// Сущности в чанках без тикета уровня SIMULATE заморожены - их не двигает ни физика, ни соседи
+// из своих клеток (толкнуть их может только соседняя активная сущность).
+// Покоящиеся сущности пропускаются: если тик закончился на земле без скорости и без сдвига,
+// следующий тик физики при тех же блоках даст то же самое. Сущность просыпается, если её
+// сдвинули между тиками, толкнул сосед или изменились блоки мира.
+public class EntityUpdater {
+    // Меньше этого параллельность не окупает раздачу задач
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final PhysicsSystem physicsSystem = PhysicsSystem.getInstance();
+    @Getter
+    private final EntityGrid grid = new EntityGrid();
+    private final World world;
+    private final VoxelQuery serialVoxels;
+    private final ThreadLocal<VoxelCursor> workerVoxels;
+    @Getter
+    @Setter
+    private boolean parallel = true;
+    private int blockRevision;
+
+    EntityUpdater(World world) {
+        this.world = world;
+        this.blockRevision = world.getBlockRevision();
+        this.serialVoxels = world;
+        this.workerVoxels = ThreadLocal.withInitial(() -> new VoxelCursor(world));
+    }
+
+    public void update(EntityStore store, float deltaTime) {
+        wake(store);
+        grid.rebuild(store);
+        boolean useWorkers = parallel && store.getSize() >= PARALLEL_THRESHOLD;
+
+        for (int color = 0; color < EntityGrid.COLORS; color++) {
+            int first = grid.firstRun(color);
+            int end = grid.endRun(color);
+            if (useWorkers && end - first > 1) {
+                IntStream.range(first, end).parallel()
+                        .forEach(run -> updateCell(store, run, deltaTime, workerVoxels.get()));
+            } else {
+                for (int run = first; run < end; run++) {
+                    updateCell(store, run, deltaTime, serialVoxels);
+                }
+            }
+        }
+
+        settle(store);
+    }
+
+    // До сохранения prev: prev ещё хранит положение начала прошлого тика, а у покоящейся
+    // сущности оно же и конечное - любое расхождение значит, что её двигали между тиками.
+    // Скорость покоящейся сущности нулевая, ненулевая - значит её толкнули (прыжок)
+    private void wake(EntityStore store) {
+        boolean blocksChanged = blockRevision != world.getBlockRevision();
+        blockRevision = world.getBlockRevision();
+
+        int size = store.getSize();
+        float[] posX = store.getPosX();
+        float[] posY = store.getPosY();
+        float[] posZ = store.getPosZ();
+        float[] prevX = store.getPrevX();
+        float[] prevY = store.getPrevY();
+        float[] prevZ = store.getPrevZ();
+        float[] velX = store.getVelX();
+        float[] velY = store.getVelY();
+        float[] velZ = store.getVelZ();
+        for (int id = 0; id < size; id++) {
+            if (blocksChanged || posX[id] != prevX[id] || posY[id] != prevY[id] || posZ[id] != prevZ[id]
+                    || velX[id] != 0 || velY[id] != 0 || velZ[id] != 0) {
+                store.setResting(id, false);
+            }
+        }
+    }
+
+    private void settle(EntityStore store) {
+        int size = store.getSize();
+        float[] posX = store.getPosX();
+        float[] posY = store.getPosY();
+        float[] posZ = store.getPosZ();
+        float[] prevX = store.getPrevX();
+        float[] prevY = store.getPrevY();
+        float[] prevZ = store.getPrevZ();
+        float[] velX = store.getVelX();
+        float[] velY = store.getVelY();
+        float[] velZ = store.getVelZ();
+        for (int id = 0; id < size; id++) {
+            boolean resting = store.isOnGround(id)
+                    && velX[id] == 0 && velY[id] == 0 && velZ[id] == 0
+                    && posX[id] == prevX[id] && posY[id] == prevY[id] && posZ[id] == prevZ[id];
+            store.setResting(id, resting);
+        }
+    }
+
+    private void updateCell(EntityStore store, int run, float deltaTime, VoxelQuery voxels) {
+        int cx = grid.runCellX(run);
+        int cz = grid.runCellZ(run);
+        ChunkTickets tickets = world.getTickets();
+        // Сущности одной клетки почти всегда в одном чанке - уровень чанка запоминается
+        int lastChunkX = 0;
+        int lastChunkZ = 0;
+        boolean lastSimulated = false;
+        boolean looked = false;
+        for (int i = grid.runStart(run); i < grid.runEnd(run); i++) {
+            int id = grid.idAt(i);
+            // Пару с покоящейся сущностью проверит её бодрствующий сосед
+            if (store.isResting(id)) continue;
+
+            int chunkX = World.worldToChunk(store.getPosX()[id]);
+            int chunkZ = World.worldToChunk(store.getPosZ()[id]);
+            if (!looked || chunkX != lastChunkX || chunkZ != lastChunkZ) {
+                lastChunkX = chunkX;
+                lastChunkZ = chunkZ;
+                lastSimulated = tickets.isAtLeast(chunkX, chunkZ, ChunkLevel.SIMULATE);
+                looked = true;
+            }
+            if (!lastSimulated) continue;
+
+            store.getView(id).update(deltaTime, voxels);
+            collideWithNeighbors(store, id, cx, cz, voxels);
+        }
+    }
+
+    // Соседи берутся по клеткам начала тика, и только из тех, до которых сущность дотягивается -
+    // но не дальше соседних с её клеткой, иначе фазы одного цвета задели бы общих соседей.
+    // Уже разведённые пары повторно не сдвигаются.
+    private void collideWithNeighbors(EntityStore store, int id, int cx, int cz, VoxelQuery voxels) {
+        float reach = store.getRadius()[id] + grid.maxRadius();
+        float x = store.getPosX()[id];
+        float z = store.getPosZ()[id];
+        int minX = Math.max(cx - 1, grid.cell(x - reach));
+        int maxX = Math.min(cx + 1, grid.cell(x + reach));
+        int minZ = Math.max(cz - 1, grid.cell(z - reach));
+        int maxZ = Math.min(cz + 1, grid.cell(z + reach));
+        for (int nx = minX; nx <= maxX; nx++) {
+            for (int nz = minZ; nz <= maxZ; nz++) {
+                int run = grid.findRun(nx, nz);
+                if (run < 0) continue;
+                for (int i = grid.runStart(run); i < grid.runEnd(run); i++) {
+                    int other = grid.idAt(i);
+                    if (other == id) continue;
+
+                    if (physicsSystem.separate(store, id, other, voxels)) {
+                        store.setResting(id, false);
+                        store.setResting(other, false);
+                    }
+                }
+            }
+        }
+    }
+}
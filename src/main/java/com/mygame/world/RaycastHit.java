@@ -0,0 +1,29 @@
+package com.mygame.world;
+
+import lombok.Getter;
+
+// Результат World.raycast. Заполняется на месте, чтобы луч каждый клик не создавал объектов:
+// вызывающий код держит свой экземпляр и переиспользует его
+@Getter
+public class RaycastHit {
+    // Клетка блока (как в VoxelQuery)
+    private int x;
+    private int y;
+    private int z;
+    // Нормаль грани, через которую луч вошёл в блок; нулевая, если луч начался внутри блока
+    private int normalX;
+    private int normalY;
+    private int normalZ;
+    // Расстояние от начала луча до входа в блок, в мировых единицах
+    private float distance;
+
+    void set(int x, int y, int z, int normalX, int normalY, int normalZ, float distance) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.normalZ = normalZ;
+        this.distance = distance;
+    }
+}
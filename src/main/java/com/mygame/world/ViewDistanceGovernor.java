@@ -0,0 +1,156 @@
+package com.mygame.world;
+
+import com.mygame.engine.profiler.Profiler;
+import lombok.Getter;
+
+// Подстраивает дальность прорисовки и число новых чанков за тик под нагрузку машины.
+// Нагрузка кадра - сглаженное время работы кадра на CPU или GPU (что больше), без ожидания vsync:
+// иначе при включённой синхронизации кадр всегда выглядел бы ровно на бюджет.
+// Гистерезис: между порогами LOW и HIGH ничего не меняется, рост требует нескольких спокойных
+// оценок подряд, а после любого изменения выдерживается пауза.
+public class ViewDistanceGovernor {
+    public enum Decision {
+        HOLD,
+        GROW_BUDGET,
+        GROW_DISTANCE,
+        SHRINK_BUDGET,
+        SHRINK_DISTANCE
+    }
+
+    private static final float TARGET_FRAME_MS = 1000f / 60f;
+    private static final float LOW = 0.7f;
+    private static final float HIGH = 1.0f;
+    private static final int EVALUATE_EVERY_TICKS = 30;
+    private static final int CALM_EVALUATIONS_TO_GROW = 4;
+    private static final int COOLDOWN_EVALUATIONS = 2;
+
+    private final Profiler profiler = Profiler.getInstance();
+    private final int minViewDistance;
+    private final int maxViewDistance;
+    private final int minChunksPerTick;
+    private final int maxChunksPerTick;
+
+    // Текущие решения и входы последней оценки; читаются из любого потока
+    @Getter
+    private volatile int viewDistance;
+    @Getter
+    private volatile int chunksPerTick;
+    @Getter
+    private volatile float frameLoadMs;
+    @Getter
+    private volatile int queueDepth;
+    @Getter
+    private volatile Decision lastDecision = Decision.HOLD;
+    @Getter
+    private volatile int changeCount;
+
+    private int ticks;
+    private int calm;
+    private int cooldown;
+    // Решения заданы извне (повтор записи), нагрузка не оценивается
+    private boolean pinned;
+
+    public ViewDistanceGovernor() {
+        this(2, 8, 1, 8, 3, 4);
+    }
+
+    public ViewDistanceGovernor(int minViewDistance, int maxViewDistance,
+                                int minChunksPerTick, int maxChunksPerTick,
+                                int initialViewDistance, int initialChunksPerTick) {
+        if (minViewDistance < 1 || minViewDistance > maxViewDistance
+                || minChunksPerTick < 1 || minChunksPerTick > maxChunksPerTick) {
+            throw new IllegalArgumentException("Неверные границы регулятора дальности");
+        }
+        this.minViewDistance = minViewDistance;
+        this.maxViewDistance = maxViewDistance;
+        this.minChunksPerTick = minChunksPerTick;
+        this.maxChunksPerTick = maxChunksPerTick;
+        this.viewDistance = clamp(initialViewDistance, minViewDistance, maxViewDistance);
+        this.chunksPerTick = clamp(initialChunksPerTick, minChunksPerTick, maxChunksPerTick);
+    }
+
+    // Поток симуляции, раз за тик. queueDepth - чанки, которые ещё ждут генерации или загрузки
+    public void update(int queueDepth) {
+        this.queueDepth = queueDepth;
+        if (pinned) return;
+        if (++ticks < EVALUATE_EVERY_TICKS) return;
+        ticks = 0;
+
+        float load = Math.max(profiler.getSmoothedMs("frame"), profiler.getSmoothedGpuMs());
+        frameLoadMs = load;
+        Decision decision = decide(load, queueDepth);
+        lastDecision = decision;
+        if (decision != Decision.HOLD) {
+            changeCount++;
+        }
+
+        profiler.counter("view distance", viewDistance);
+        profiler.counter("chunks per tick", chunksPerTick);
+        profiler.counter("chunk queue", queueDepth);
+        profiler.counter("frame load ms", load);
+    }
+
+    // Фиксирует дальность и бюджет: повтор записи воспроизводит решения записанной сессии,
+    // а не принимает свои по нагрузке этой машины
+    public void pin(int viewDistance, int chunksPerTick) {
+        this.viewDistance = clamp(viewDistance, minViewDistance, maxViewDistance);
+        this.chunksPerTick = clamp(chunksPerTick, minChunksPerTick, maxChunksPerTick);
+        pinned = true;
+    }
+
+    private Decision decide(float load, int depth) {
+        if (cooldown > 0) {
+            cooldown--;
+            calm = 0;
+            return Decision.HOLD;
+        }
+
+        if (load > TARGET_FRAME_MS * HIGH) {
+            calm = 0;
+            // Пока есть очередь, кадр скорее всего тормозят загрузки - сначала режем их,
+            // иначе дорого само рисование и сокращается дальность
+            Decision decision;
+            if (depth > 0 && chunksPerTick > minChunksPerTick) {
+                chunksPerTick--;
+                decision = Decision.SHRINK_BUDGET;
+            } else if (viewDistance > minViewDistance) {
+                viewDistance--;
+                decision = Decision.SHRINK_DISTANCE;
+            } else if (chunksPerTick > minChunksPerTick) {
+                chunksPerTick--;
+                decision = Decision.SHRINK_BUDGET;
+            } else {
+                return Decision.HOLD;
+            }
+            cooldown = COOLDOWN_EVALUATIONS;
+            return decision;
+        }
+
+        if (load >= TARGET_FRAME_MS * LOW) {
+            calm = 0;
+            return Decision.HOLD;
+        }
+        if (++calm < CALM_EVALUATIONS_TO_GROW) {
+            return Decision.HOLD;
+        }
+        calm = 0;
+
+        // Запас есть: сначала разбираем очередь быстрее, дальность растёт только когда всё загружено
+        Decision decision;
+        if (depth > chunksPerTick && chunksPerTick < maxChunksPerTick) {
+            chunksPerTick++;
+            decision = Decision.GROW_BUDGET;
+        } else if (depth == 0 && viewDistance < maxViewDistance) {
+            viewDistance++;
+            decision = Decision.GROW_DISTANCE;
+        } else {
+            return Decision.HOLD;
+        }
+        cooldown = COOLDOWN_EVALUATIONS;
+        return decision;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
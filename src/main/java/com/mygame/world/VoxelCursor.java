@@ -0,0 +1,50 @@
+package com.mygame.world;
+
+import com.mygame.world.chunk.Chunk;
+
+import java.util.Arrays;
+
+// VoxelQuery с кешем чанков: 4x4 ячейки по младшим битам координат чанка, так что запрос,
+// задевающий стык нескольких чанков, не вытесняет сам себя, а сущности, идущие подряд по сетке
+// соседей, чаще всего попадают в уже найденные чанки. Запоминается и отсутствие чанка -
+// сущности за краем загруженного мира спрашивают пустоту каждый тик.
+// Кеш не потокобезопасен, поэтому у каждого потока, читающего мир, свой курсор.
+// Любое изменение блоков мира (World.blockRevision) сбрасывает кеш.
+public class VoxelCursor implements VoxelQuery {
+    private static final int SLOTS = 16;
+
+    private final World world;
+    private final Chunk[] cached = new Chunk[SLOTS];
+    private final int[] cachedX = new int[SLOTS];
+    private final int[] cachedZ = new int[SLOTS];
+    private final boolean[] valid = new boolean[SLOTS];
+    private int revision;
+
+    VoxelCursor(World world) {
+        this.world = world;
+        this.revision = world.getBlockRevision();
+    }
+
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        if (y < 0 || y >= Chunk.HEIGHT) return false;
+
+        int chunkX = Math.floorDiv(x, Chunk.SIZE);
+        int chunkZ = Math.floorDiv(z, Chunk.SIZE);
+        if (revision != world.getBlockRevision()) {
+            revision = world.getBlockRevision();
+            Arrays.fill(valid, false);
+        }
+
+        int slot = (chunkX & 3) << 2 | (chunkZ & 3);
+        if (!valid[slot] || cachedX[slot] != chunkX || cachedZ[slot] != chunkZ) {
+            cached[slot] = world.getChunk(chunkX, chunkZ);
+            cachedX[slot] = chunkX;
+            cachedZ[slot] = chunkZ;
+            valid[slot] = true;
+        }
+        Chunk chunk = cached[slot];
+        if (chunk == null) return false;
+        return chunk.getVoxel(x - chunkX * Chunk.SIZE, y, z - chunkZ * Chunk.SIZE) != 0;
+    }
+}
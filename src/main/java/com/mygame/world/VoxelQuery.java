@@ -0,0 +1,8 @@
+package com.mygame.world;
+
+// Запросы к сетке блоков по целочисленным координатам: клетка (x, y, z) - блок с центром
+// в (x, y, z) * Chunk.BLOCK_SIZE. Физика спрашивает только клетки, которые задевает сущность.
+public interface VoxelQuery {
+    // true, если в клетке есть блок; за пределами высоты мира и незагруженных чанков - воздух
+    boolean isSolid(int x, int y, int z);
+}
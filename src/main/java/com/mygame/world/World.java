@@ -1,138 +1,441 @@
 package com.mygame.world;
 
-import com.mygame.engine.entity.Entity;
+import com.mygame.engine.FrameSnapshot;
+import com.mygame.engine.TickScheduler;
+import com.mygame.engine.TickSystem;
+import com.mygame.engine.entity.EntityStore;
 import com.mygame.engine.entity.Player;
 import com.mygame.engine.graphics.Renderer;
+import com.mygame.engine.profiler.Profiler;
 import com.mygame.world.block.Block;
 import com.mygame.world.chunk.Chunk;
+import com.mygame.world.chunk.ChunkLod;
+import com.mygame.world.chunk.ChunkMesh;
+import com.mygame.world.chunk.ChunkMeshCache;
+import com.mygame.world.chunk.ChunkMeshUpload;
 import com.mygame.world.chunk.ChunkPos;
+import com.mygame.world.chunk.ChunkSnapshot;
 import lombok.Getter;
 import org.joml.Vector3f;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class World {
-    private static final int VIEW_DISTANCE = 3;
-    private static final int MAX_CHUNKS_PER_FRAME = 4;
+// Мир принадлежит потоку симуляции. С рендером он общается только через очереди заданий
+// на загрузку/выгрузку мешей и через неизменяемые снимки FrameSnapshot.
+// Какие чанки загружены, решают тикеты ChunkTickets: игрок держит свои, любой другой
+// наблюдатель может добавить свои через getTickets().
+public class World implements VoxelQuery {
+    private static final int[][] SIDE_NEIGHBORS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    // Подгрузке чанков и уровням детализации хватает трёх раз на тик сущностей
+    public static final int STREAMING_TICK_RATE = 20;
+    public static final int ENTITY_TICK_RATE = 60;
     @Getter
     private Player player;
-    private final List<Entity> entities = new ArrayList<>();
+    // Все сущности мира, включая игрока
+    @Getter
+    private final EntityStore entityStore = new EntityStore();
     private final Map<ChunkPos, Chunk> chunks = new HashMap<>();
     private final ConcurrentLinkedQueue<Chunk> readyChunks = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Chunk> chunksToUpload = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ChunkMeshUpload> chunksToUpload = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Chunk> chunksToUnload = new ConcurrentLinkedQueue<>();
+    // Запланированы на загрузку в этом тике - перекрывающиеся тикеты не планируют чанк дважды
+    private final Set<ChunkPos> pendingChunks = new HashSet<>();
+    // Чанки, которым уровень RENDER построил меш. Снятие уровня меш не выбрасывает: из рендера
+    // он уходит вместе с выгрузкой чанка, иначе чанк на границе перестраивался бы на каждом шаге
+    private final Set<Chunk> meshedChunks = new HashSet<>();
+    // Чанки, получившие RENDER без меша; строятся ближайшими первыми в пределах бюджета тика
+    private final List<Chunk> chunksToMesh = new ArrayList<>();
+    // Сколько таких мешей отложено прошлым тиком - входит в нагрузку для регулятора
+    private int deferredMeshes;
+    // Соседи чанков, перешедших между уровнем 0 и LOD: их полный меш зависит от уровня соседа
+    private final Set<Chunk> seamNeighbors = new HashSet<>();
+    @Getter
+    private final ChunkTickets tickets = new ChunkTickets();
+    // Тикеты игрока: отрисовка в дальности прорисовки и удержание ещё на чанк дальше,
+    // чтобы чанки на границе не грузились заново при каждом шаге
+    private final ChunkTickets.Ticket playerView;
+    private final ChunkTickets.Ticket playerRetain;
+    private final ChunkMeshCache meshCache = new ChunkMeshCache();
+    private final Profiler profiler = Profiler.getInstance();
+    // Дальность прорисовки и число новых чанков за тик меняются на ходу под нагрузку
+    @Getter
+    private final ViewDistanceGovernor governor = new ViewDistanceGovernor();
+    // Растёт при любом изменении блоков: загрузке и выгрузке чанков, разрушении блока.
+    // Курсоры VoxelCursor по нему сбрасывают свой кеш, EntityUpdater будит покоящиеся сущности
+    @Getter
+    private int blockRevision;
+    // Все разрушения блоков по порядку - для сверки повтора записанной игры. Растёт на запись
+    // за клик, так что держать его всю сессию дёшево
+    private final List<BlockEdit> edits = new ArrayList<>();
+    // Запросы к блокам из потока симуляции; у параллельных обработчиков сущностей свои курсоры
+    private final VoxelCursor voxels = new VoxelCursor(this);
+    @Getter
+    private final EntityUpdater entityUpdater = new EntityUpdater(this);
+    // Используется только в потоке рендера
+    private final Vector3f renderPos = new Vector3f();
 
     public World() {
         Chunk startChunk = new Chunk(0, 0);
         chunks.put(new ChunkPos(0, 0), startChunk);
 
-        player = new Player(generateSpawnPoint(startChunk));
-        entities.add(player);
-        int chunkX = worldToChunk(player.getPosition().x);
-        int chunkZ = worldToChunk(player.getPosition().z);
+        player = new Player(entityStore, generateSpawnPoint(startChunk));
+        int viewDistance = governor.getViewDistance();
+        playerView = tickets.add(ChunkLevel.RENDER, player.getX(), player.getZ(), viewDistance);
+        playerRetain = tickets.add(ChunkLevel.KEEP_IN_MEMORY, player.getX(), player.getZ(), viewDistance + 1);
+
+        int chunkX = worldToChunk(player.getX());
+        int chunkZ = worldToChunk(player.getZ());
         ChunkPos pos = new ChunkPos(chunkX, chunkZ);
         Chunk playerChunk = chunks.get(pos);
-        playerChunk.buildMesh(getNeighborChunks(chunkX, chunkZ));
-        chunksToUpload.add(playerChunk);
+        meshedChunks.add(playerChunk);
+        buildChunkMesh(playerChunk);
+        enqueueUpload(playerChunk);
     }
 
-    public void update(float deltaTime) {
-        generateChunksAround(player.getPosition());
+    // Системы мира в порядке тика: сначала подгрузка чанков, затем сущности на готовых блоках.
+    // Предыдущее состояние сущностей сохраняется до всех систем, включая ввод игры
+    public void registerSystems(TickScheduler scheduler) {
+        scheduler.onTickStart(entityStore::savePrevState);
+        scheduler.register(new TickSystem("streaming", STREAMING_TICK_RATE, deltaTime -> updateStreaming()));
+        scheduler.register(new TickSystem("entities", ENTITY_TICK_RATE, this::updateEntities));
+    }
+
+    public void updateStreaming() {
+        int viewDistance = governor.getViewDistance();
+        playerView.update(player.getX(), player.getZ(), viewDistance);
+        playerRetain.update(player.getX(), player.getZ(), viewDistance + 1);
+
+        int missing = loadTicketedChunks();
+        unloadUnticketedChunks();
+        governor.update(missing + deferredMeshes + chunksToUpload.size());
+        int meshesBuilt = 0;
         while (!readyChunks.isEmpty()) {
             Chunk chunk = readyChunks.poll();
             if (chunk == null) continue;
 
             ChunkPos pos = new ChunkPos(chunk.getChunkX(), chunk.getChunkZ());
+            pendingChunks.remove(pos);
             chunks.put(pos, chunk);
-
-            chunk.buildMesh(getNeighborChunks(chunk.getChunkX(), chunk.getChunkZ()));
-            chunksToUpload.add(chunk);
+            blockRevision++;
+
+            if (tickets.isAtLeast(pos.x(), pos.z(), ChunkLevel.RENDER)) {
+                meshedChunks.add(chunk);
+                chunk.setLodLevel(selectLodLevel(chunk));
+                buildChunkMesh(chunk);
+                enqueueUpload(chunk);
+                meshesBuilt++;
+            }
 
             rebuildNeighbors(chunk.getChunkX(), chunk.getChunkZ());
         }
-        for (Entity entity : entities) {
-            entity.update(deltaTime, getNearbyBlocks(entity.getPosition()));
-        }
+
+        profiler.begin("lod");
+        updateLevelsOfDetail(Math.max(0, governor.getChunksPerTick() - meshesBuilt));
+        profiler.end();
+    }
+
+    public void updateEntities(float deltaTime) {
+        entityUpdater.update(entityStore, deltaTime);
     }
 
     private void rebuildNeighbors(int chunkX, int chunkZ) {
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dz = -1; dz <= 1; dz++) {
-                if (dx == 0 && dz == 0) continue;
-
-                ChunkPos pos = new ChunkPos(chunkX + dx, chunkZ + dz);
-                Chunk neighbor = chunks.get(pos);
-                if (neighbor != null) {
-                    neighbor.buildMesh(getNeighborChunks(
-                            neighbor.getChunkX(),
-                            neighbor.getChunkZ()
-                    ));
-                    chunksToUpload.add(neighbor);
+        // Фартук снимка берётся только с боковых соседей, диагональные перестраивать не нужно
+        for (int[] offset : SIDE_NEIGHBORS) {
+            rebuildNeighbor(chunks.get(new ChunkPos(chunkX + offset[0], chunkZ + offset[1])));
+        }
+    }
+
+    private void rebuildNeighbor(Chunk neighbor) {
+        if (neighbor == null || !meshedChunks.contains(neighbor)) return;
+
+        // От соседей зависит только меш полного разрешения
+        if (neighbor.getLodLevel() == 0) {
+            buildChunkMesh(neighbor);
+            enqueueUpload(neighbor);
+        } else {
+            neighbor.invalidateMesh(0);
+        }
+    }
+
+    private void collectSeamNeighbors(Chunk chunk) {
+        for (int[] offset : SIDE_NEIGHBORS) {
+            Chunk neighbor = chunks.get(new ChunkPos(chunk.getChunkX() + offset[0], chunk.getChunkZ() + offset[1]));
+            if (neighbor != null) {
+                seamNeighbors.add(neighbor);
+            }
+        }
+    }
+
+    // Заодно строит меши чанкам, которые были загружены без отрисовки и только что её получили,
+    // не больше meshBudget за тик: при росте дальности кольцо удержания получает RENDER целиком,
+    // и без бюджета десятки мешей строились бы одним тиком. Остальные ждут следующих тиков
+    private void updateLevelsOfDetail(int meshBudget) {
+        chunksToMesh.clear();
+        for (Chunk chunk : chunks.values()) {
+            if (!meshedChunks.contains(chunk)) {
+                if (tickets.isAtLeast(chunk.getChunkX(), chunk.getChunkZ(), ChunkLevel.RENDER)) {
+                    chunksToMesh.add(chunk);
                 }
+                continue;
+            }
+
+            int level = selectLodLevel(chunk);
+            if (level == chunk.getLodLevel()) continue;
+
+            if ((level == 0) != (chunk.getLodLevel() == 0)) {
+                collectSeamNeighbors(chunk);
+            }
+            chunk.setLodLevel(level);
+            if (!chunk.hasMesh(level)) {
+                buildChunkMesh(chunk);
+            }
+            enqueueUpload(chunk);
+        }
+
+        if (chunksToMesh.size() > meshBudget) {
+            chunksToMesh.sort(Comparator.comparingDouble(this::renderDistance));
+        }
+        int count = Math.min(meshBudget, chunksToMesh.size());
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = chunksToMesh.get(i);
+            meshedChunks.add(chunk);
+            chunk.setLodLevel(selectLodLevel(chunk));
+            // До меша чанк считался уровнем 0, и соседи взяли в снимок его настоящие блоки
+            if (chunk.getLodLevel() != 0) {
+                collectSeamNeighbors(chunk);
             }
+            buildChunkMesh(chunk);
+            enqueueUpload(chunk);
+        }
+        deferredMeshes = chunksToMesh.size() - count;
+        chunksToMesh.clear();
+
+        for (Chunk neighbor : seamNeighbors) {
+            rebuildNeighbor(neighbor);
         }
+        seamNeighbors.clear();
     }
 
-    private void generateChunksAround(Vector3f playerPos) {
-        int playerChunkX = worldToChunk(playerPos.x);
-        int playerChunkZ = worldToChunk(playerPos.z);
+    // Детализация - по ближайшему наблюдателю с тикетом отрисовки
+    private int selectLodLevel(Chunk chunk) {
+        return ChunkLod.selectLevel(chunk.getLodLevel(), renderDistance(chunk));
+    }
 
-        int chunksScheduled = 0;
+    private float renderDistance(Chunk chunk) {
+        float distance = Float.POSITIVE_INFINITY;
+        for (ChunkTickets.Ticket ticket : tickets.getTickets()) {
+            if (ticket.getLevel() == ChunkLevel.RENDER) {
+                distance = Math.min(distance, ChunkLod.distanceInChunks(chunk, ticket.getX(), ticket.getZ()));
+            }
+        }
+        return distance;
+    }
 
-        for (int dx = -VIEW_DISTANCE; dx <= VIEW_DISTANCE; dx++) {
-            for (int dz = -VIEW_DISTANCE; dz <= VIEW_DISTANCE; dz++) {
-                ChunkPos cp = new ChunkPos(playerChunkX + dx, playerChunkZ + dz);
+    private void buildChunkMesh(Chunk chunk) {
+        profiler.begin("meshing");
+        if (chunk.getLodLevel() == 0) {
+            ChunkSnapshot snapshot = createSnapshot(chunk);
+            long hash = snapshot.contentHash();
+            ChunkMeshCache.CachedMesh cached = meshCache.load(chunk.getChunkX(), chunk.getChunkZ(), hash);
+            if (cached != null) {
+                chunk.setMesh(0, cached.vertices(), cached.sectionStarts());
+            } else {
+                chunk.buildBinaryMesh(snapshot);
+                ChunkMesh mesh = chunk.getMesh();
+                meshCache.store(chunk.getChunkX(), chunk.getChunkZ(), hash, mesh.getVertices(), mesh.getSectionStarts());
+            }
+        } else {
+            chunk.buildLodMesh(chunk.getLodLevel());
+        }
+        profiler.end();
+    }
 
-                if (!chunks.containsKey(cp) && chunksScheduled < MAX_CHUNKS_PER_FRAME) {
-                    chunksScheduled++;
-                    Chunk newChunk = new Chunk(cp.x(), cp.z());
-                    readyChunks.add(newChunk);
+    // Чанки тикетов, которые загружают, в порядке добавления тикетов - первыми идут чанки игрока.
+    // Возвращает, сколько чанков ещё не запланировано - глубину очереди генерации
+    private int loadTicketedChunks() {
+        int chunksPerTick = governor.getChunksPerTick();
+        int chunksScheduled = 0;
+        int missing = 0;
+
+        for (ChunkTickets.Ticket ticket : tickets.getTickets()) {
+            if (!ticket.getLevel().loads()) continue;
+
+            int radius = ticket.getRadius();
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    ChunkPos cp = new ChunkPos(ticket.getChunkX() + dx, ticket.getChunkZ() + dz);
+                    if (chunks.containsKey(cp) || pendingChunks.contains(cp)) continue;
+
+                    if (chunksScheduled < chunksPerTick) {
+                        chunksScheduled++;
+                        pendingChunks.add(cp);
+                        readyChunks.add(new Chunk(cp.x(), cp.z()));
+                    } else {
+                        missing++;
+                    }
                 }
             }
         }
+        return missing;
+    }
+
+    private void unloadUnticketedChunks() {
         Iterator<Map.Entry<ChunkPos, Chunk>> it = chunks.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<ChunkPos, Chunk> entry = it.next();
             ChunkPos cp = entry.getKey();
-            int dx = Math.abs(cp.x() - playerChunkX);
-            int dz = Math.abs(cp.z() - playerChunkZ);
-            if (dx > VIEW_DISTANCE || dz > VIEW_DISTANCE) {
-                it.remove();
-            }
+            if (tickets.getLevel(cp.x(), cp.z()) != null) continue;
+
+            it.remove();
+            meshedChunks.remove(entry.getValue());
+            blockRevision++;
+            // Флаг до очереди: задание загрузки, которое рендер заберёт после разбора выгрузок,
+            // уже увидит его и будет отброшено, а не оживит чанк навсегда
+            entry.getValue().markUnloaded();
+            chunksToUnload.add(entry.getValue());
         }
     }
 
-    public void render(Renderer renderer, Vector3f renderPos) {
-        for (Entity entity : entities) {
-            entity.render(renderer, renderPos);
+    // Вершины копируются в задание сразу, после чего меш может выбросить свою копию
+    private void enqueueUpload(Chunk chunk) {
+        ChunkMesh mesh = chunk.getMesh();
+        if (mesh == null || !mesh.hasVertices()) return;
+
+        chunksToUpload.add(ChunkMeshUpload.of(chunk, mesh));
+        mesh.onUploaded();
+    }
+
+    public FrameSnapshot captureFrame(long tick, long timeNanos) {
+        EntityStore store = entityStore;
+        int count = store.getSize();
+        float[] prevX = store.getPrevX();
+        float[] prevY = store.getPrevY();
+        float[] prevZ = store.getPrevZ();
+        float[] posX = store.getPosX();
+        float[] posY = store.getPosY();
+        float[] posZ = store.getPosZ();
+        float[] prevYaw = store.getPrevYaw();
+        float[] yaw = store.getYaw();
+        List<FrameSnapshot.EntityState> states = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            states.add(new FrameSnapshot.EntityState(prevX[id], prevY[id], prevZ[id], posX[id], posY[id], posZ[id],
+                    prevYaw[id], yaw[id], store.getRadius()[id], store.getHeight()[id]));
         }
 
+        int id = player.getId();
+        float eyeOffset = player.getHeight() - 0.1f;
+        FrameSnapshot.EntityState eye = new FrameSnapshot.EntityState(
+                prevX[id], prevY[id] + eyeOffset, prevZ[id], posX[id], posY[id] + eyeOffset, posZ[id],
+                prevYaw[id], yaw[id], 0f, 0f);
+        return new FrameSnapshot(tick, timeNanos, eye, store.getPrevPitch()[id], store.getPitch()[id],
+                List.copyOf(states));
+    }
+
+    // Поток рендера: рисует снимок и передаёт накопленные задания на загрузку мешей планировщику рендера
+    public void render(Renderer renderer, FrameSnapshot snapshot, float alpha) {
+        for (FrameSnapshot.EntityState entity : snapshot.entities()) {
+            renderer.renderPlayer(entity.radius(), entity.height(), entity.interpolateYaw(alpha),
+                    entity.interpolate(alpha, renderPos));
+        }
+
+        profiler.begin("upload");
         while (!chunksToUpload.isEmpty()) {
-            Chunk chunk = chunksToUpload.poll();
-            if (chunk != null && !chunk.isUploaded()) {
-                renderer.uploadChunk(chunk);
-                chunk.markUploaded();
+            ChunkMeshUpload upload = chunksToUpload.poll();
+            if (upload != null) {
+                renderer.queueUpload(upload);
+            }
+        }
+
+        while (!chunksToUnload.isEmpty()) {
+            Chunk chunk = chunksToUnload.poll();
+            if (chunk != null) {
+                renderer.unloadChunk(chunk);
             }
         }
+        renderer.processUploads();
+        profiler.end();
 
         renderer.renderChunk();
     }
 
-    public List<Block> getNearbyBlocks(Vector3f pos) {
-        List<Block> result = new ArrayList<>();
+    // Обход клеток вдоль луча (Amanatides & Woo): от клетки к клетке через ближайшую грань,
+    // без шага по лучу и без выделений. direction не обязан быть единичным.
+    // Клетка i занимает [(i - 0.5) * BLOCK_SIZE, (i + 0.5) * BLOCK_SIZE) по каждой оси.
+    public boolean raycast(Vector3f origin, Vector3f direction, float maxDistance, RaycastHit hit) {
+        float length = direction.length();
+        if (length == 0f) return false;
+        float dx = direction.x / length;
+        float dy = direction.y / length;
+        float dz = direction.z / length;
+
+        float gx = origin.x / Chunk.BLOCK_SIZE + 0.5f;
+        float gy = origin.y / Chunk.BLOCK_SIZE + 0.5f;
+        float gz = origin.z / Chunk.BLOCK_SIZE + 0.5f;
+        int x = (int) Math.floor(gx);
+        int y = (int) Math.floor(gy);
+        int z = (int) Math.floor(gz);
+        if (isSolid(x, y, z)) {
+            hit.set(x, y, z, 0, 0, 0, 0f);
+            return true;
+        }
 
-        int cx = worldToChunk(pos.x);
-        int cz = worldToChunk(pos.z);
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dz = -1; dz <= 1; dz++) {
-                Chunk chunk = chunks.get(new ChunkPos(cx + dx, cz + dz));
-                if (chunk != null) {
-                    result.addAll(chunk.getBlocks());
-                }
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        // Расстояние по лучу до первой границы клетки по оси и между соседними границами
+        float maxX = boundaryDistance(gx, x, dx);
+        float maxY = boundaryDistance(gy, y, dy);
+        float maxZ = boundaryDistance(gz, z, dz);
+        float deltaX = dx != 0 ? Chunk.BLOCK_SIZE / Math.abs(dx) : Float.POSITIVE_INFINITY;
+        float deltaY = dy != 0 ? Chunk.BLOCK_SIZE / Math.abs(dy) : Float.POSITIVE_INFINITY;
+        float deltaZ = dz != 0 ? Chunk.BLOCK_SIZE / Math.abs(dz) : Float.POSITIVE_INFINITY;
+
+        while (true) {
+            float t;
+            int normalX = 0, normalY = 0, normalZ = 0;
+            if (maxX < maxY && maxX < maxZ) {
+                t = maxX;
+                x += stepX;
+                maxX += deltaX;
+                normalX = -stepX;
+            } else if (maxY < maxZ) {
+                t = maxY;
+                y += stepY;
+                maxY += deltaY;
+                normalY = -stepY;
+            } else {
+                t = maxZ;
+                z += stepZ;
+                maxZ += deltaZ;
+                normalZ = -stepZ;
+            }
+            if (t > maxDistance) return false;
+
+            if (isSolid(x, y, z)) {
+                hit.set(x, y, z, normalX, normalY, normalZ, t);
+                return true;
             }
         }
+    }
+
+    private static float boundaryDistance(float grid, int cell, float direction) {
+        if (direction > 0) return (cell + 1 - grid) * Chunk.BLOCK_SIZE / direction;
+        if (direction < 0) return (grid - cell) * Chunk.BLOCK_SIZE / -direction;
+        return Float.POSITIVE_INFINITY;
+    }
+
+    public List<BlockEdit> getEdits() {
+        return Collections.unmodifiableList(edits);
+    }
 
-        return result;
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        return voxels.isSolid(x, y, z);
+    }
+
+    Chunk getChunk(int chunkX, int chunkZ) {
+        return chunks.get(new ChunkPos(chunkX, chunkZ));
     }
 
     private Vector3f generateSpawnPoint(Chunk chunk) {
@@ -154,10 +457,22 @@ public class World {
         return new Vector3f(0, 5, 0);
     }
 
-    private int worldToChunk(float worldCoord) {
+    static int worldToChunk(float worldCoord) {
         return (int) Math.floor(worldCoord / (Chunk.SIZE * Chunk.BLOCK_SIZE));
     }
 
+    // Клетка в координатах VoxelQuery, например из RaycastHit
+    public void destroyBlockAt(int x, int y, int z) {
+        if (y < 0 || y >= Chunk.HEIGHT) return;
+
+        int chunkX = Math.floorDiv(x, Chunk.SIZE);
+        int chunkZ = Math.floorDiv(z, Chunk.SIZE);
+        Chunk chunk = chunks.get(new ChunkPos(chunkX, chunkZ));
+        if (chunk == null) return;
+
+        destroyBlock(chunk.getBlockLocal(x - chunkX * Chunk.SIZE, y, z - chunkZ * Chunk.SIZE));
+    }
+
     public void destroyBlock(Block block) {
         if (block == null) return;
 
@@ -167,29 +482,40 @@ public class World {
         Chunk chunk = chunks.get(new ChunkPos(chunkX, chunkZ));
         if (chunk == null) return;
 
-        chunk.destroyBlock(block);
+        // Неразрушимый блок ничего не меняет: ни мешей, ни ревизии, ни записи для повтора
+        if (!chunk.destroyBlock(block)) return;
 
-        chunk.buildMesh(getNeighborChunks(chunk.getChunkX(), chunk.getChunkZ()));
-        chunksToUpload.add(chunk);
+        chunk.invalidateMeshes();
+        blockRevision++;
+        edits.add(new BlockEdit(
+                Math.round(block.getPosition().x / Chunk.BLOCK_SIZE),
+                Math.round(block.getPosition().y / Chunk.BLOCK_SIZE),
+                Math.round(block.getPosition().z / Chunk.BLOCK_SIZE)));
+
+        if (meshedChunks.contains(chunk)) {
+            buildChunkMesh(chunk);
+            enqueueUpload(chunk);
+        }
 
         rebuildNeighbors(chunkX, chunkZ);
     }
 
-    public Map<Long, Chunk> getNeighborChunks(int chunkX, int chunkZ) {
-        Map<Long, Chunk> neighbors = new HashMap<>();
-
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dz = -1; dz <= 1; dz++) {
-                if (dx == 0 && dz == 0) continue;
-                ChunkPos pos = new ChunkPos(chunkX + dx, chunkZ + dz);
-                Chunk neighbor = chunks.get(pos);
-                if (neighbor != null) {
-                    long key = (((long) (chunkX + dx)) << 32) | ((chunkZ + dz) & 0xFFFFFFFFL);
-                    neighbors.put(key, neighbor);
-                }
-            }
-        }
+    public ChunkSnapshot createSnapshot(Chunk chunk) {
+        int x = chunk.getChunkX();
+        int z = chunk.getChunkZ();
+        return new ChunkSnapshot(
+                chunk,
+                snapshotNeighbor(x - 1, z),
+                snapshotNeighbor(x + 1, z),
+                snapshotNeighbor(x, z - 1),
+                snapshotNeighbor(x, z + 1)
+        );
+    }
 
-        return neighbors;
+    // Сосед, нарисованный на уровне LOD, в снимок идёт воздухом: его огрублённая ячейка может
+    // быть пустой там, где настоящий блок есть, и спрятанная грань дала бы щель на стыке уровней
+    private Chunk snapshotNeighbor(int chunkX, int chunkZ) {
+        Chunk neighbor = chunks.get(new ChunkPos(chunkX, chunkZ));
+        return neighbor != null && neighbor.getLodLevel() == 0 ? neighbor : null;
     }
 }
@@ -5,16 +5,23 @@ import com.mygame.world.block.*;
 import com.mygame.world.chunk.Chunk;
 import org.joml.Vector3f;
 
+import java.util.Random;
+
 public class WorldGeneration {
     private static final double FREQUENCY = 0.05;
     private static final double MAX_HEIGHT = 50;
+    private static final long SEED = 123456789;
     private final OpenSimplexNoise noise;
+    private Random random;
 
     public WorldGeneration() {
-        this.noise = new OpenSimplexNoise(123456789);
+        this.noise = new OpenSimplexNoise(SEED);
     }
 
     public void generateChunk(Chunk chunk) {
+        // Руда и деревья зависят только от координат чанка, чтобы один и тот же чанк
+        // генерировался одинаково между запусками (на этом держится дисковый кэш мешей)
+        random = new Random(SEED ^ (chunk.getChunkX() * 341873128712L + chunk.getChunkZ() * 132897987541L));
         generateTerrain(chunk);
         generateOre(chunk, 18, 6, 20, 5, 45, CoalOreBlock.class);
         generateOre(chunk, 12, 5, 20, 5, 40, IronOreBlock.class);
@@ -63,14 +70,14 @@ public class WorldGeneration {
 
     private void generateOre(Chunk chunk, int veins, int minSize, int maxSize, int minY, int maxY, Class<? extends Block> oreClass) {
         for (int i = 0; i < veins; i++) {
-            int x = (int) (Math.random() * Chunk.SIZE);
-            int z = (int) (Math.random() * Chunk.SIZE);
-            int y = minY + (int) (Math.random() * (maxY - minY));
+            int x = (int) (random.nextDouble() * Chunk.SIZE);
+            int z = (int) (random.nextDouble() * Chunk.SIZE);
+            int y = minY + (int) (random.nextDouble() * (maxY - minY));
 
             Block start = chunk.getBlockLocal(x, y, z);
             if (!(start instanceof StoneBlock)) continue;
 
-            int size = minSize + (int) (Math.random() * (maxSize - minSize));
+            int size = minSize + (int) (random.nextDouble() * (maxSize - minSize));
             growOre(chunk, x, y, z, size, oreClass);
         }
     }
@@ -90,14 +97,14 @@ public class WorldGeneration {
             }
 
             // Случайное смещение в пределах 1 блока (GregTech style)
-            int dx = (int) (Math.random() * 3) - 1;
-            int dy = (int) (Math.random() * 3) - 1;
-            int dz = (int) (Math.random() * 3) - 1;
+            int dx = (int) (random.nextDouble() * 3) - 1;
+            int dy = (int) (random.nextDouble() * 3) - 1;
+            int dz = (int) (random.nextDouble() * 3) - 1;
 
             // Небольшая вероятность для "ветвления"
-            if (Math.random() < 0.3) dx *= 2;
-            if (Math.random() < 0.3) dy *= 2;
-            if (Math.random() < 0.3) dz *= 2;
+            if (random.nextDouble() < 0.3) dx *= 2;
+            if (random.nextDouble() < 0.3) dy *= 2;
+            if (random.nextDouble() < 0.3) dz *= 2;
 
             cx = Math.max(0, Math.min(Chunk.SIZE - 1, cx + dx));
             cy = (int) Math.max(2, Math.min(MAX_HEIGHT - 1, cy + dy)); // не ниже бедрока
@@ -121,7 +128,7 @@ public class WorldGeneration {
                 if (topY == -1) continue; // нет земли, дерево не растёт
 
                 // Шанс сгенерировать дерево
-                if ((int) (Math.random() * treeChanel) == 0) {
+                if ((int) (random.nextDouble() * treeChanel) == 0) {
                     generateTreeAt(chunk, x, topY + 1, z);
                 }
             }
@@ -129,7 +136,7 @@ public class WorldGeneration {
     }
 
     private void generateTreeAt(Chunk chunk, int x, int y, int z) {
-        int height = 4 + (int) (Math.random() * 3); // высота ствола 4-6 блоков
+        int height = 4 + (int) (random.nextDouble() * 3); // высота ствола 4-6 блоков
 
         // Ствол
         for (int i = 0; i < height; i++) {
@@ -0,0 +1,199 @@
+package com.mygame.world.chunk;
+
+import com.mygame.world.block.BlockType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// Бинарный мешер: заполненность чанка хранится 64-битными масками колонок вдоль каждой оси,
+// видимые грани целой колонки в одном направлении получаются одним сдвигом и AND-NOT
+public class BinaryChunkMesher {
+    // Увеличивать при любом изменении формата вершин или правил построения меша
+    public static final int VERSION = 4;
+    private static final int SIZE = Chunk.SIZE;
+    private static final int HEIGHT = Chunk.HEIGHT;
+    private static final int PADDED = ChunkSnapshot.SIZE_XZ;
+    // Биты 1..SIZE - внутренние клетки, биты 0 и SIZE + 1 - фартук соседей
+    private static final long INNER = ((1L << SIZE) - 1) << 1;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    static {
+        // Колонка - одно 64-битное слово, строка снимка - два слова и два байта, блоки транспонирования 8x8
+        if (HEIGHT > Long.SIZE || PADDED != 18 || SIZE % 8 != 0 || HEIGHT % 8 != 0) {
+            throw new IllegalStateException("Размеры чанка не подходят бинарному мешеру");
+        }
+        if (BlockType.values().length >= 0x7F) {
+            throw new IllegalStateException("id блоков не помещаются в 7 бит");
+        }
+    }
+
+    // Вдоль Y: [x * SIZE + z], бит y
+    private final long[] columnsY = new long[SIZE * SIZE];
+    // Вдоль X: [y * SIZE + z], бит x + 1
+    private final long[] columnsX = new long[HEIGHT * SIZE];
+    // Вдоль Z: [x * HEIGHT + y], бит z + 1
+    private final long[] columnsZ = new long[SIZE * HEIGHT];
+    // Строки вдоль Z вместе с фартуком по X: [(x + 1) * HEIGHT + y], бит z + 1
+    private final long[] rows = new long[PADDED * HEIGHT];
+
+    private byte[] voxels;
+    private ChunkMeshEmitter emitter;
+    private float baseX;
+    private float baseZ;
+
+    public void mesh(ChunkSnapshot snapshot, ChunkMeshEmitter emitter) {
+        this.voxels = snapshot.getVoxels();
+        this.emitter = emitter;
+        this.baseX = snapshot.getChunkX() * SIZE * Chunk.BLOCK_SIZE;
+        this.baseZ = snapshot.getChunkZ() * SIZE * Chunk.BLOCK_SIZE;
+
+        buildColumns();
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                long column = columnsY[x * SIZE + z];
+                if (column == 0) continue;
+                emitY(column & ~(column >>> 1), ChunkMeshEmitter.FACE_TOP, x, z);
+                emitY(column & ~(column << 1), ChunkMeshEmitter.FACE_BOTTOM, x, z);
+            }
+        }
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                long column = columnsX[y * SIZE + z];
+                if ((column & INNER) == 0) continue;
+                emitX(column & ~(column >>> 1) & INNER, ChunkMeshEmitter.FACE_RIGHT, y, z);
+                emitX(column & ~(column << 1) & INNER, ChunkMeshEmitter.FACE_LEFT, y, z);
+            }
+        }
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                long column = columnsZ[x * HEIGHT + y];
+                if ((column & INNER) == 0) continue;
+                emitZ(column & ~(column >>> 1) & INNER, ChunkMeshEmitter.FACE_FRONT, x, y);
+                emitZ(column & ~(column << 1) & INNER, ChunkMeshEmitter.FACE_BACK, x, y);
+            }
+        }
+
+        this.voxels = null;
+        this.emitter = null;
+    }
+
+    // Строка вдоль Z (18 байт снимка) читается тремя словами и сразу становится маской колонки Z.
+    // Колонки Y и X - те же биты, транспонированные блоками 8x8 по строкам одного x или одного y
+    private void buildColumns() {
+        for (int px = 0; px < PADDED; px++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int row = ChunkSnapshot.index(px - 1, y, -1);
+                long bits = nonZeroBytes((long) LONGS.get(voxels, row))
+                        | nonZeroBytes((long) LONGS.get(voxels, row + 8)) << 8
+                        | (long) (voxels[row + 16] != 0 ? 1 : 0) << 16
+                        | (long) (voxels[row + 17] != 0 ? 1 : 0) << 17;
+                rows[px * HEIGHT + y] = bits;
+            }
+        }
+        System.arraycopy(rows, HEIGHT, columnsZ, 0, SIZE * HEIGHT);
+
+        // Y: для каждого x - матрица 64 (y) x 16 (z)
+        for (int x = 0; x < SIZE; x++) {
+            int rowBase = (x + 1) * HEIGHT;
+            for (int zBlock = 0; zBlock < SIZE; zBlock += 8) {
+                for (int yBlock = 0; yBlock < HEIGHT; yBlock += 8) {
+                    long block = 0;
+                    for (int k = 0; k < 8; k++) {
+                        block |= ((rows[rowBase + yBlock + k] >>> (zBlock + 1)) & 0xFFL) << (k * 8);
+                    }
+                    block = transpose8(block);
+                    for (int k = 0; k < 8; k++) {
+                        int column = x * SIZE + zBlock + k;
+                        long bitsY = ((block >>> (k * 8)) & 0xFFL) << yBlock;
+                        columnsY[column] = yBlock == 0 ? bitsY : columnsY[column] | bitsY;
+                    }
+                }
+            }
+        }
+
+        // X: для каждого y - матрица 18 (x с фартуком) x 16 (z), x дополнен нулями до 24
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int zBlock = 0; zBlock < SIZE; zBlock += 8) {
+                for (int xBlock = 0; xBlock < PADDED; xBlock += 8) {
+                    long block = 0;
+                    for (int k = 0; k < 8 && xBlock + k < PADDED; k++) {
+                        block |= ((rows[(xBlock + k) * HEIGHT + y] >>> (zBlock + 1)) & 0xFFL) << (k * 8);
+                    }
+                    block = transpose8(block);
+                    for (int k = 0; k < 8; k++) {
+                        int column = y * SIZE + zBlock + k;
+                        long bitsX = ((block >>> (k * 8)) & 0xFFL) << xBlock;
+                        columnsX[column] = xBlock == 0 ? bitsX : columnsX[column] | bitsX;
+                    }
+                }
+            }
+        }
+    }
+
+    // Бит i - байт i слова не ноль. id блоков меньше 0x80, поэтому прибавка 0x7F не переносится
+    // в соседний байт, а старший бит байта загорается ровно у ненулевых
+    private static long nonZeroBytes(long word) {
+        long high = (word + 0x7F7F7F7F7F7F7F7FL) & 0x8080808080808080L;
+        return ((high >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    // Транспонирование битовой матрицы 8x8: байт - строка, бит - столбец (Hacker's Delight, 7-3)
+    private static long transpose8(long x) {
+        long t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+        x = x ^ t ^ (t << 7);
+        t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+        x = x ^ t ^ (t << 14);
+        t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+        return x ^ t ^ (t << 28);
+    }
+
+    // Обход граней колонки - отдельно по осям, чтобы в цикле по битам не было выбора оси:
+    // id блока берётся шагом индекса вдоль колонки, секция - из целой координаты y
+
+    private void emitY(long bits, int face, int x, int z) {
+        float s = Chunk.BLOCK_SIZE / 2f;
+        float worldX = baseX + x * Chunk.BLOCK_SIZE;
+        float worldZ = baseZ + z * Chunk.BLOCK_SIZE;
+        int base = ChunkSnapshot.index(x, 0, z);
+        while (bits != 0) {
+            int y = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int id = voxels[base + y * ChunkSnapshot.STRIDE_Y];
+            emitter.addFace(y / Chunk.SECTION_HEIGHT, worldX, y * Chunk.BLOCK_SIZE, worldZ, s, face, id - 1);
+        }
+    }
+
+    private void emitX(long bits, int face, int y, int z) {
+        float s = Chunk.BLOCK_SIZE / 2f;
+        float worldY = y * Chunk.BLOCK_SIZE;
+        float worldZ = baseZ + z * Chunk.BLOCK_SIZE;
+        int section = y / Chunk.SECTION_HEIGHT;
+        // Бит x + 1 - клетка x
+        int base = ChunkSnapshot.index(-1, y, z);
+        while (bits != 0) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int id = voxels[base + bit * ChunkSnapshot.STRIDE_X];
+            emitter.addFace(section, baseX + (bit - 1) * Chunk.BLOCK_SIZE, worldY, worldZ, s, face, id - 1);
+        }
+    }
+
+    private void emitZ(long bits, int face, int x, int y) {
+        float s = Chunk.BLOCK_SIZE / 2f;
+        float worldX = baseX + x * Chunk.BLOCK_SIZE;
+        float worldY = y * Chunk.BLOCK_SIZE;
+        int section = y / Chunk.SECTION_HEIGHT;
+        // Бит z + 1 - клетка z
+        int base = ChunkSnapshot.index(x, y, -1);
+        while (bits != 0) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int id = voxels[base + bit * ChunkSnapshot.STRIDE_Z];
+            emitter.addFace(section, worldX, worldY, baseZ + (bit - 1) * Chunk.BLOCK_SIZE, s, face, id - 1);
+        }
+    }
+}
@@ -12,6 +12,9 @@ import java.util.Map;
 
 public class Chunk {
     public static final int SIZE = 16;
+    public static final int HEIGHT = 64;
+    public static final int SECTION_HEIGHT = 16;
+    public static final int SECTIONS = HEIGHT / SECTION_HEIGHT;
     public static final float BLOCK_SIZE = 0.5f;
 
     private static final int X_BITS = 11;
@@ -25,25 +28,41 @@ public class Chunk {
     private static final int Z_MASK = (1 << Z_BITS) - 1;
     private static final int X_OFFSET = 1 << (X_BITS - 1);
     private static final int Z_OFFSET = 1 << (Z_BITS - 1);
+    private static final BlockType[] TYPES = BlockType.values();
+    private static final ThreadLocal<ChunkMeshEmitter> EMITTER = ThreadLocal.withInitial(ChunkMeshEmitter::new);
+    private static final ThreadLocal<BinaryChunkMesher> BINARY_MESHER = ThreadLocal.withInitial(BinaryChunkMesher::new);
+    private static final ThreadLocal<SectionVisibility> SECTION_VISIBILITY = ThreadLocal.withInitial(SectionVisibility::new);
 
     @Getter
     private final List<Block> blocks = new ArrayList<>();
     private final Map<Integer, Block> blockMap = new HashMap<>();
+    // Плотная копия типов блоков: 0 - воздух, иначе BlockType.ordinal() + 1
+    final byte[] voxels = new byte[SIZE * HEIGHT * SIZE];
+    // meshes[0] - полное разрешение, остальные - уровни LOD
+    private final ChunkMesh[] meshes = new ChunkMesh[ChunkLod.LEVELS];
+    // Графы видимости секций пересчитываются лениво, только для секций, где менялись блоки
+    private final long[] sectionVisibility = new long[SECTIONS];
+    private int dirtySections = (1 << SECTIONS) - 1;
     @Getter
-    private ChunkMesh mesh;
+    private int lodLevel = 0;
     @Getter
     private final int chunkX;
     @Getter
     private final int chunkZ;
+    // Ставит поток симуляции при выгрузке, читает поток рендера. Выгруженный чанк не загружается
+    // снова - при возврате создаётся новый объект, поэтому флаг не сбрасывается
     @Getter
-    private boolean uploaded = false;
+    private volatile boolean unloaded;
 
     public Chunk(int chunkX, int chunkZ) {
         this.chunkX = chunkX;
         this.chunkZ = chunkZ;
         WorldGeneration worldGeneration = new WorldGeneration();
         worldGeneration.generateChunk(this);
-        uploaded = false;
+    }
+
+    public void markUnloaded() {
+        unloaded = true;
     }
 
     private int pack(int x, int y, int z) {
@@ -58,173 +77,184 @@ public class Chunk {
         return (px << X_SHIFT) | (py << Y_SHIFT) | (pz << Z_SHIFT);
     }
 
-    public boolean isBlockAt(int x, int y, int z, Map<Long, Chunk> neighborChunks) {
-        int key = pack(x, y, z);
-        if (blockMap.containsKey(key)) return false;
-
-        if (neighborChunks != null) {
-            int chunkOffsetX = (x < 0) ? -1 : (x >= SIZE) ? 1 : 0;
-            int chunkOffsetZ = (z < 0) ? -1 : (z >= SIZE) ? 1 : 0;
-
-            if (chunkOffsetX != 0 || chunkOffsetZ != 0) {
-                long neighborKey = (((long) (chunkX + chunkOffsetX)) << 32) | ((chunkZ + chunkOffsetZ) & 0xFFFFFFFFL);
-                Chunk neighbor = neighborChunks.get(neighborKey);
-                if (neighbor != null) {
-                    int nx = x - chunkOffsetX * SIZE;
-                    int nz = z - chunkOffsetZ * SIZE;
-                    return !neighbor.blockMap.containsKey(pack(nx, y, nz));
-                }
-            }
-        }
-        return true;
+    static int index(int x, int y, int z) {
+        return (x * HEIGHT + y) * SIZE + z;
+    }
+
+    private static boolean inBounds(int x, int y, int z) {
+        return x >= 0 && x < SIZE && y >= 0 && y < HEIGHT && z >= 0 && z < SIZE;
     }
 
-    public void buildMesh(Map<Long, Chunk> neighborChunks) {
-        List<Float> verticesList = new ArrayList<>();
+    public void buildMesh(ChunkSnapshot snapshot) {
+        ChunkMeshEmitter emitter = EMITTER.get();
+        emitter.reset();
         float s = BLOCK_SIZE / 2f;
+        byte[] voxels = snapshot.getVoxels();
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    int i = ChunkSnapshot.index(x, y, z);
+                    byte id = voxels[i];
+                    if (id == 0) continue;
+
+                    boolean top = voxels[i + ChunkSnapshot.STRIDE_Y] == 0;
+                    boolean bottom = voxels[i - ChunkSnapshot.STRIDE_Y] == 0;
+                    boolean front = voxels[i + ChunkSnapshot.STRIDE_Z] == 0;
+                    boolean back = voxels[i - ChunkSnapshot.STRIDE_Z] == 0;
+                    boolean left = voxels[i - ChunkSnapshot.STRIDE_X] == 0;
+                    boolean right = voxels[i + ChunkSnapshot.STRIDE_X] == 0;
+
+                    emitter.addCube(
+                            (chunkX * SIZE + x) * BLOCK_SIZE,
+                            y * BLOCK_SIZE,
+                            (chunkZ * SIZE + z) * BLOCK_SIZE,
+                            s, top, bottom, front, back, left, right, TYPES[id - 1]);
+                }
+            }
+        }
 
-        for (Block block : blocks) {
-            int bx = (int) ((block.getPosition().x / BLOCK_SIZE) - chunkX * SIZE);
-            int by = (int) (block.getPosition().y / BLOCK_SIZE);
-            int bz = (int) ((block.getPosition().z / BLOCK_SIZE) - chunkZ * SIZE);
+        setMesh(0, emitter.toArray(), emitter.getSectionStarts());
+    }
 
-            boolean top = isBlockAt(bx, by + 1, bz, neighborChunks);
-            boolean bottom = isBlockAt(bx, by - 1, bz, neighborChunks);
-            boolean front = isBlockAt(bx, by, bz + 1, neighborChunks);
-            boolean back = isBlockAt(bx, by, bz - 1, neighborChunks);
-            boolean left = isBlockAt(bx - 1, by, bz, neighborChunks);
-            boolean right = isBlockAt(bx + 1, by, bz, neighborChunks);
+    // То же, что buildMesh, но видимость граней считается масками целых колонок
+    public void buildBinaryMesh(ChunkSnapshot snapshot) {
+        ChunkMeshEmitter emitter = EMITTER.get();
+        emitter.reset();
+        BINARY_MESHER.get().mesh(snapshot, emitter);
+        setMesh(0, emitter.toArray(), emitter.getSectionStarts());
+    }
 
-            addCube(verticesList, block.getPosition().x, block.getPosition().y, block.getPosition().z, s,
-                    top, bottom, front, back, left, right, block.getBlockType());
+    public void buildLodMesh(int level) {
+        if (level == 0) {
+            throw new IllegalArgumentException("Уровень 0 строится через buildMesh");
         }
-
-        float[] vertices = new float[verticesList.size()];
-        for (int i = 0; i < verticesList.size(); i++) {
-            vertices[i] = verticesList.get(i);
+        int factor = ChunkLod.factor(level);
+        int cellsXZ = SIZE / factor;
+        int cellsY = HEIGHT / factor;
+
+        // Даунсэмплинг: ячейка factor^3 считается заполненной, если в ней не меньше половины блоков,
+        // тип берётся у самого верхнего блока, чтобы поверхность сохраняла траву
+        BlockType[] cells = new BlockType[cellsXZ * cellsY * cellsXZ];
+        int half = factor * factor * factor / 2;
+        for (int cx = 0; cx < cellsXZ; cx++) {
+            for (int cz = 0; cz < cellsXZ; cz++) {
+                for (int cy = 0; cy < cellsY; cy++) {
+                    int count = 0;
+                    BlockType topType = null;
+                    for (int y = cy * factor; y < (cy + 1) * factor; y++) {
+                        for (int x = cx * factor; x < (cx + 1) * factor; x++) {
+                            for (int z = cz * factor; z < (cz + 1) * factor; z++) {
+                                byte id = voxels[index(x, y, z)];
+                                if (id != 0) {
+                                    count++;
+                                    topType = TYPES[id - 1];
+                                }
+                            }
+                        }
+                    }
+                    if (count > 0 && count >= half) {
+                        cells[(cx * cellsY + cy) * cellsXZ + cz] = topType;
+                    }
+                }
+            }
         }
 
-        if (mesh == null)
-            mesh = new ChunkMesh(vertices);
-        else {
-            mesh.updateVertices(vertices);
+        ChunkMeshEmitter emitter = EMITTER.get();
+        emitter.reset();
+        float cellSize = factor * BLOCK_SIZE;
+        float s = cellSize / 2f;
+        float originX = chunkX * SIZE * BLOCK_SIZE - BLOCK_SIZE / 2f;
+        float originZ = chunkZ * SIZE * BLOCK_SIZE - BLOCK_SIZE / 2f;
+        float originY = -BLOCK_SIZE / 2f;
+
+        for (int cx = 0; cx < cellsXZ; cx++) {
+            for (int cy = 0; cy < cellsY; cy++) {
+                for (int cz = 0; cz < cellsXZ; cz++) {
+                    BlockType type = cells[(cx * cellsY + cy) * cellsXZ + cz];
+                    if (type == null) continue;
+
+                    // Соседние чанки могут быть на другом уровне LOD, поэтому грани на границе чанка рисуем всегда
+                    boolean top = cy + 1 >= cellsY || cells[(cx * cellsY + cy + 1) * cellsXZ + cz] == null;
+                    boolean bottom = cy == 0 || cells[(cx * cellsY + cy - 1) * cellsXZ + cz] == null;
+                    boolean front = cz + 1 >= cellsXZ || cells[(cx * cellsY + cy) * cellsXZ + cz + 1] == null;
+                    boolean back = cz == 0 || cells[(cx * cellsY + cy) * cellsXZ + cz - 1] == null;
+                    boolean left = cx == 0 || cells[((cx - 1) * cellsY + cy) * cellsXZ + cz] == null;
+                    boolean right = cx + 1 >= cellsXZ || cells[((cx + 1) * cellsY + cy) * cellsXZ + cz] == null;
+
+                    emitter.addCube(
+                            originX + cx * cellSize + s,
+                            originY + cy * cellSize + s,
+                            originZ + cz * cellSize + s,
+                            s, top, bottom, front, back, left, right, type);
+                }
+            }
         }
+
+        setMesh(level, emitter.toArray(), emitter.getSectionStarts());
     }
 
-    private void addCube(List<Float> vertices, float x, float y, float z, float s,
-                         boolean top, boolean bottom, boolean front,
-                         boolean back, boolean left, boolean right, BlockType blockType) {
-
-        float[] whiteColor = {1.0f, 1.0f, 1.0f};
-
-        float[][][] faces = {
-                // face 0: Верхняя грань
-                {{-s, +s, -s}, {+s, +s, -s}, {+s, +s, +s}, {+s, +s, +s}, {-s, +s, +s}, {-s, +s, -s}},
-                // face 1: Нижняя грань
-                {{-s, -s, -s}, {-s, -s, +s}, {+s, -s, +s}, {+s, -s, +s}, {+s, -s, -s}, {-s, -s, -s}},
-                // face 2: Передняя грань
-                {{+s, -s, +s}, {-s, -s, +s}, {-s, +s, +s}, {-s, +s, +s}, {+s, +s, +s}, {+s, -s, +s}},
-                // face 3: Задняя грань
-                {{-s, -s, -s}, {+s, -s, -s}, {+s, +s, -s}, {+s, +s, -s}, {-s, +s, -s}, {-s, -s, -s}},
-                // face 4: Левая грань
-                {{-s, -s, +s}, {-s, -s, -s}, {-s, +s, -s}, {-s, +s, -s}, {-s, +s, +s}, {-s, -s, +s}},
-                // face 5: Правая грань
-                {{+s, -s, -s}, {+s, -s, +s}, {+s, +s, +s}, {+s, +s, +s}, {+s, +s, -s}, {+s, -s, -s}}
-        };
-
-        boolean[] visible = {top, bottom, front, back, left, right};
-
-        float[] uvCoords = {
-                0, 0,
-                1, 0,
-                1, 1,
-                1, 1,
-                0, 1,
-                0, 0
-        };
-
-        for (int faceIndex = 0; faceIndex < 6; faceIndex++) {
-            if (!visible[faceIndex]) continue;
-            float textureType = getUnitForeTexture(blockType, faceIndex);
-
-            for (int vertexIndex = 0; vertexIndex < 6; vertexIndex++) {
-                float vx = x + faces[faceIndex][vertexIndex][0];
-                float vy = y + faces[faceIndex][vertexIndex][1];
-                float vz = z + faces[faceIndex][vertexIndex][2];
-
-                vertices.add(vx);
-                vertices.add(vy);
-                vertices.add(vz);
-                vertices.add(whiteColor[0]);
-                vertices.add(whiteColor[1]);
-                vertices.add(whiteColor[2]);
-                vertices.add(uvCoords[vertexIndex * 2]);
-                vertices.add(uvCoords[vertexIndex * 2 + 1]);
-                vertices.add(textureType);
-            }
+    public void setMesh(int level, float[] vertices, int[] sectionStarts) {
+        // Полный меш дешевле перестроить (или взять из дискового кэша), а уровни LOD
+        // перезагружаются при каждом переключении, поэтому их держим сжатыми
+        MeshResidency residency = level == 0 ? MeshResidency.DROP_AFTER_UPLOAD : MeshResidency.COMPRESS_AFTER_UPLOAD;
+        int version = meshes[level] != null ? meshes[level].getVersion() + 1 : 0;
+        meshes[level] = new ChunkMesh(vertices, sectionStarts, residency, version);
+    }
+
+    public long getSectionVisibility(int section) {
+        if ((dirtySections & (1 << section)) != 0) {
+            sectionVisibility[section] = SECTION_VISIBILITY.get().compute(voxels, section);
+            dirtySections &= ~(1 << section);
         }
+        return sectionVisibility[section];
+    }
 
+    public ChunkMesh getMesh() {
+        return meshes[lodLevel];
     }
 
-    public void destroyBlock(Block block) {
-        if (block.getBlockType() != BlockType.BEDROCK) {
-            blocks.remove(block);
-            blockMap.values().remove(block);
-            uploaded = false;
+    // Есть ли меш уровня, который можно загрузить без перестроения
+    public boolean hasMesh(int level) {
+        return meshes[level] != null && meshes[level].hasVertices();
+    }
+
+    public void setLodLevel(int level) {
+        lodLevel = level;
+    }
+
+    // Сбрасывает закэшированные меши, кроме активного, после изменения блоков
+    public void invalidateMeshes() {
+        for (int level = 0; level < meshes.length; level++) {
+            invalidateMesh(level);
         }
     }
 
-    private float getUnitForeTexture(BlockType blockType, int faceIndex) {
-        final float GRASS_TOP_TEX = 0.0f;
-        final float GRASS_SIDE_TEX = 1.0f;
-        final float DIRT_TEX = 2.0f;
-        final float STONE_TEX = 3.0f;
-        final float WOOD_TOP_TEX = 4.0f;
-        final float WOOD_SIDE_TEX = 5.0f;
-        final float COAL_ORE = 7.0f;
-        final float IRON_ORE = 8.0f;
-        final float BEDROCK = 9.0f;
-        final float LEAVES_OAK = 10.0f;
-
-        switch (blockType) {
-            case GRASS -> {
-                if (faceIndex == 0) {
-                    return GRASS_TOP_TEX;
-                } else if (faceIndex == 1) {
-                    return DIRT_TEX;
-                } else {
-                    return GRASS_SIDE_TEX;
-                }
-            }
-            case DIRT -> {
-                return DIRT_TEX;
-            }
-            case STONE -> {
-                return STONE_TEX;
-            }
-            case WOOD -> {
-                if (faceIndex == 0 || faceIndex == 1) { // Верх и низ
-                    return WOOD_TOP_TEX;
-                } else {
-                    return WOOD_SIDE_TEX;
-                }
-            }
-            case COAL_ORE -> {
-                return COAL_ORE;
-            }
-            case IRON_ORE -> {
-                return IRON_ORE;
-            }
-            case BEDROCK -> {
-                return BEDROCK;
-            }
-            case LEAVES_OAK -> {
-                return LEAVES_OAK;
-            }
-            default -> {
-                return 1.0f;
-            }
+    public void invalidateMesh(int level) {
+        if (level != lodLevel) {
+            meshes[level] = null;
+        }
+    }
+
+    // Возвращает false, если удалять нечего: бедрок неразрушим, а блок мог уже исчезнуть
+    public boolean destroyBlock(Block block) {
+        if (block.getBlockType() == BlockType.BEDROCK) {
+            return false;
         }
+
+        int x = Math.round(block.getPosition().x / BLOCK_SIZE) - chunkX * SIZE;
+        int y = Math.round(block.getPosition().y / BLOCK_SIZE);
+        int z = Math.round(block.getPosition().z / BLOCK_SIZE) - chunkZ * SIZE;
+
+        if (blockMap.remove(pack(x, y, z)) == null) {
+            return false;
+        }
+        blocks.remove(block);
+        if (inBounds(x, y, z)) {
+            voxels[index(x, y, z)] = 0;
+            dirtySections |= 1 << (y / SECTION_HEIGHT);
+        }
+        return true;
     }
 
     public void putBlock(int x, int y, int z, Block block) {
@@ -238,14 +268,18 @@ public class Chunk {
 
         blocks.add(block);
         blockMap.put(key, block);
-        uploaded = false;
+        if (inBounds(x, y, z)) {
+            voxels[index(x, y, z)] = (byte) (block.getBlockType().ordinal() + 1);
+            dirtySections |= 1 << (y / SECTION_HEIGHT);
+        }
     }
 
     public Block getBlockLocal(int x, int y, int z) {
         return blockMap.get(pack(x, y, z));
     }
 
-    public void markUploaded() {
-        uploaded = true;
+    // 0 - воздух, иначе BlockType.ordinal() + 1; координаты локальные и в пределах чанка
+    public byte getVoxel(int x, int y, int z) {
+        return voxels[index(x, y, z)];
     }
 }
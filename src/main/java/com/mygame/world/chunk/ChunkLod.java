@@ -0,0 +1,39 @@
+package com.mygame.world.chunk;
+
+public final class ChunkLod {
+    public static final int LEVELS = 4; // 1x, 2x, 4x, 8x
+    public static final int MAX_LEVEL = LEVELS - 1;
+
+    // Граница между уровнями i и i+1, в чанках от игрока до центра чанка. Подобраны под дальность
+    // регулятора 2..8: при стартовой 3 работают уровни 0 и 1, начиная с 5 - все четыре
+    private static final float[] DISTANCES = {2.0f, 4.0f, 6.0f};
+    // Зазор, чтобы чанк на границе не переключался туда-сюда каждый кадр
+    private static final float HYSTERESIS = 0.5f;
+
+    private ChunkLod() {
+    }
+
+    public static int factor(int level) {
+        return 1 << level;
+    }
+
+    public static int selectLevel(int currentLevel, float distanceInChunks) {
+        int level = currentLevel;
+        while (level < MAX_LEVEL && distanceInChunks > DISTANCES[level] + HYSTERESIS) {
+            level++;
+        }
+        while (level > 0 && distanceInChunks < DISTANCES[level - 1] - HYSTERESIS) {
+            level--;
+        }
+        return level;
+    }
+
+    public static float distanceInChunks(Chunk chunk, float worldX, float worldZ) {
+        float chunkWorldSize = Chunk.SIZE * Chunk.BLOCK_SIZE;
+        float centerX = (chunk.getChunkX() + 0.5f) * chunkWorldSize - Chunk.BLOCK_SIZE / 2f;
+        float centerZ = (chunk.getChunkZ() + 0.5f) * chunkWorldSize - Chunk.BLOCK_SIZE / 2f;
+        float dx = (worldX - centerX) / chunkWorldSize;
+        float dz = (worldZ - centerZ) / chunkWorldSize;
+        return (float) Math.sqrt(dx * dx + dz * dz);
+    }
+}
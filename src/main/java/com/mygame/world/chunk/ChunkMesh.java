@@ -1,26 +1,126 @@
 package com.mygame.world.chunk;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Меш одной сборки: вершины и метаданные не меняются, при перестроении создаётся новый объект.
+// Принадлежит потоку симуляции, рендер получает неизменяемую копию через ChunkMeshUpload.
 @Getter
 public class ChunkMesh {
+    private final MeshResidency residency;
     private float[] vertices;
-    private int vertexCount;
-    private boolean dirty;
+    @Getter(AccessLevel.NONE)
+    private byte[] compressed;
+    private final int vertexCount;
+    private final int byteSize;
+    // Растёт с каждой новой сборкой меша того же уровня
+    private final int version;
+    // Вершины слоя l секции i лежат в [sectionStarts[r], sectionStarts[r + 1]), r = ChunkMeshEmitter.rangeIndex(l, i)
+    private final int[] sectionStarts;
+    // Ограничивающий AABB в мировых координатах, переживает выгрузку вершин
+    private float minX, minY, minZ;
+    private float maxX, maxY, maxZ;
 
-    public ChunkMesh(float[] vertices) {
+    public ChunkMesh(float[] vertices, int[] sectionStarts, MeshResidency residency, int version) {
+        this.residency = residency;
         this.vertices = vertices;
-        this.vertexCount = vertices.length / 8;
-        this.dirty = true;
+        this.sectionStarts = sectionStarts;
+        this.vertexCount = vertices.length / ChunkMeshEmitter.FLOATS_PER_VERTEX;
+        this.byteSize = vertices.length * Float.BYTES;
+        this.version = version;
+        computeBounds(vertices);
+    }
+
+    private void computeBounds(float[] vertices) {
+        minX = minY = minZ = Float.POSITIVE_INFINITY;
+        maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+        // Сравнения вместо Math.min/max: координаты вершин не бывают NaN и -0 здесь не важен,
+        // а проверки Math.min на них заметны на меше в тысячи вершин
+        for (int i = 0; i < vertices.length; i += ChunkMeshEmitter.FLOATS_PER_VERTEX) {
+            float x = vertices[i];
+            float y = vertices[i + 1];
+            float z = vertices[i + 2];
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+            if (z < minZ) minZ = z;
+            if (z > maxZ) maxZ = z;
+        }
+    }
+
+    // Вершины для загрузки в VBO; null, если CPU-копия уже выброшена
+    public float[] getVertices() {
+        if (vertices != null) {
+            return vertices;
+        }
+        if (compressed != null) {
+            return decompress(compressed, byteSize);
+        }
+        return null;
+    }
+
+    public boolean hasVertices() {
+        return vertices != null || compressed != null;
+    }
+
+    // Вызывается, когда вершины переданы рендеру на загрузку в VBO
+    public void onUploaded() {
+        if (vertices == null) {
+            return;
+        }
+        switch (residency) {
+            case DROP_AFTER_UPLOAD -> vertices = null;
+            case COMPRESS_AFTER_UPLOAD -> {
+                compressed = compress(vertices);
+                vertices = null;
+            }
+            case KEEP -> {
+            }
+        }
     }
 
-    public void updateVertices(float[] newVertices) {
-        this.vertices = newVertices;
-        this.vertexCount = newVertices.length / 6;
-        this.dirty = true;
+    private static byte[] compress(float[] vertices) {
+        ByteBuffer bytes = ByteBuffer.allocate(vertices.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asFloatBuffer().put(vertices);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes.array());
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.capacity() / 4);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
     }
 
-    public void markDirty() {
-        dirty = false;
+    private static float[] decompress(byte[] compressed, int byteSize) {
+        byte[] bytes = new byte[byteSize];
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        try {
+            int offset = 0;
+            while (offset < byteSize && !inflater.finished()) {
+                offset += inflater.inflate(bytes, offset, byteSize - offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Повреждён сжатый меш", e);
+        } finally {
+            inflater.end();
+        }
+
+        float[] vertices = new float[byteSize / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vertices);
+        return vertices;
     }
 }
@@ -0,0 +1,124 @@
+package com.mygame.world.chunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Дисковый кэш готовых мешей полного разрешения. Ключ - координаты чанка,
+// в заголовке файла лежат версия мешера и хэш содержимого снимка.
+public class ChunkMeshCache {
+    public record CachedMesh(float[] vertices, int[] sectionStarts) {
+    }
+
+    private static final int MAGIC = 0x4D455348; // "MESH"
+    private static final int HEADER_BYTES = Integer.BYTES * (3 + ChunkMeshEmitter.RANGES + 1) + Long.BYTES;
+
+    private final Path directory;
+    // Запись идёт в фоне, чтобы не тормозить кадр сотнями килобайт на чанк
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mesh-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChunkMeshCache() {
+        this(Paths.get("cache", "meshes"));
+    }
+
+    public ChunkMeshCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // Возвращает меш, если кэш есть и совпадают версия мешера и хэш, иначе null
+    public CachedMesh load(int chunkX, int chunkZ, long contentHash) {
+        Path file = fileFor(chunkX, chunkZ);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            // Читаем в кучу, а не отображаем: файл в пару сотен килобайт, а живое отображение
+            // на Windows не даёт писателю заменить файл через move
+            ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC
+                    || buffer.getInt() != BinaryChunkMesher.VERSION
+                    || buffer.getLong() != contentHash) {
+                return null;
+            }
+
+            int[] sectionStarts = new int[ChunkMeshEmitter.RANGES + 1];
+            for (int i = 0; i < sectionStarts.length; i++) {
+                sectionStarts[i] = buffer.getInt();
+            }
+
+            int floatCount = buffer.getInt();
+            if (floatCount < 0 || (long) floatCount * Float.BYTES != size - HEADER_BYTES) {
+                return null;
+            }
+
+            float[] vertices = new float[floatCount];
+            buffer.asFloatBuffer().get(vertices);
+            return new CachedMesh(vertices, sectionStarts);
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать кэш меша: " + file);
+            return null;
+        }
+    }
+
+    public void store(int chunkX, int chunkZ, long contentHash, float[] vertices, int[] sectionStarts) {
+        writer.execute(() -> write(fileFor(chunkX, chunkZ), contentHash, vertices, sectionStarts));
+    }
+
+    private void write(Path file, long contentHash, float[] vertices, int[] sectionStarts) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + vertices.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(BinaryChunkMesher.VERSION);
+        buffer.putLong(contentHash);
+        for (int start : sectionStarts) {
+            buffer.putInt(start);
+        }
+        buffer.putInt(vertices.length);
+        buffer.asFloatBuffer().put(vertices);
+        buffer.position(0);
+
+        try {
+            Files.createDirectories(directory);
+            // Пишем во временный файл и переименовываем, чтобы читатель не увидел половину меша
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Не удалось записать кэш меша: " + file);
+        }
+    }
+
+    private Path fileFor(int chunkX, int chunkZ) {
+        return directory.resolve(chunkX + "_" + chunkZ + ".mesh");
+    }
+}
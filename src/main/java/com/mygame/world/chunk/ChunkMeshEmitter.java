@@ -0,0 +1,215 @@
+package com.mygame.world.chunk;
+
+import com.mygame.world.block.BlockType;
+
+import java.util.Arrays;
+
+// Собирает вершины граней в растущий float[] без упаковки в List<Float>
+public class ChunkMeshEmitter {
+    public static final int FACE_TOP = 0;
+    public static final int FACE_BOTTOM = 1;
+    public static final int FACE_FRONT = 2;
+    public static final int FACE_BACK = 3;
+    public static final int FACE_LEFT = 4;
+    public static final int FACE_RIGHT = 5;
+
+    // Непрозрачные грани рисуются шейдером без discard, чтобы работал ранний тест глубины;
+    // вырезанные по альфе (листва) - отдельным проходом после них
+    public static final int LAYER_OPAQUE = 0;
+    public static final int LAYER_CUTOUT = 1;
+    public static final int LAYERS = 2;
+    // Диапазонов в меше: по одному на каждую пару слой-секция
+    public static final int RANGES = LAYERS * Chunk.SECTIONS;
+
+    // 9 элементов на вершину: x,y,z,r,g,b,u,v,type
+    public static final int FLOATS_PER_VERTEX = 9;
+    private static final int FLOATS_PER_FACE = FLOATS_PER_VERTEX * 6;
+
+    // Знаки смещений углов грани относительно центра куба
+    private static final float[][][] FACES = {
+            // face 0: Верхняя грань
+            {{-1, +1, -1}, {+1, +1, -1}, {+1, +1, +1}, {+1, +1, +1}, {-1, +1, +1}, {-1, +1, -1}},
+            // face 1: Нижняя грань
+            {{-1, -1, -1}, {-1, -1, +1}, {+1, -1, +1}, {+1, -1, +1}, {+1, -1, -1}, {-1, -1, -1}},
+            // face 2: Передняя грань
+            {{+1, -1, +1}, {-1, -1, +1}, {-1, +1, +1}, {-1, +1, +1}, {+1, +1, +1}, {+1, -1, +1}},
+            // face 3: Задняя грань
+            {{-1, -1, -1}, {+1, -1, -1}, {+1, +1, -1}, {+1, +1, -1}, {-1, +1, -1}, {-1, -1, -1}},
+            // face 4: Левая грань
+            {{-1, -1, +1}, {-1, -1, -1}, {-1, +1, -1}, {-1, +1, -1}, {-1, +1, +1}, {-1, -1, +1}},
+            // face 5: Правая грань
+            {{+1, -1, -1}, {+1, -1, +1}, {+1, +1, +1}, {+1, +1, +1}, {+1, +1, -1}, {+1, -1, -1}}
+    };
+
+    private static final BlockType[] TYPES = BlockType.values();
+    // Таблицы вместо switch на каждую грань: слой текстуры по [тип][грань], слой рендера по типу,
+    // смещения углов грани подряд (x, y, z на вершину)
+    private static final float[][] TEXTURES = new float[TYPES.length][FACES.length];
+    private static final int[] TYPE_LAYERS = new int[TYPES.length];
+    private static final float[][] CORNERS = new float[FACES.length][18];
+
+    static {
+        for (BlockType type : TYPES) {
+            TYPE_LAYERS[type.ordinal()] = layerOf(type);
+            for (int face = 0; face < FACES.length; face++) {
+                TEXTURES[type.ordinal()][face] = getUnitForeTexture(type, face);
+            }
+        }
+        for (int face = 0; face < FACES.length; face++) {
+            for (int vertex = 0; vertex < 6; vertex++) {
+                System.arraycopy(FACES[face][vertex], 0, CORNERS[face], vertex * 3, 3);
+            }
+        }
+    }
+
+    private static final float[] UV_COORDS = {
+            0, 0,
+            1, 0,
+            1, 1,
+            1, 1,
+            0, 1,
+            0, 0
+    };
+
+    // Грани копятся отдельно по слоям и секциям, чтобы в итоговом массиве каждая пара
+    // лежала непрерывным диапазоном [слой * SECTIONS + секция] и её можно было рисовать (или отсекать) отдельно
+    private static final float SECTION_WORLD_HEIGHT = Chunk.SECTION_HEIGHT * Chunk.BLOCK_SIZE;
+    private final float[][] data = new float[RANGES][FLOATS_PER_FACE * 64];
+    private final int[] sizes = new int[RANGES];
+
+    public void reset() {
+        Arrays.fill(sizes, 0);
+    }
+
+    public int getVertexCount() {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        return total / FLOATS_PER_VERTEX;
+    }
+
+    public float[] toArray() {
+        float[] result = new float[getVertexCount() * FLOATS_PER_VERTEX];
+        int offset = 0;
+        for (int range = 0; range < RANGES; range++) {
+            System.arraycopy(data[range], 0, result, offset, sizes[range]);
+            offset += sizes[range];
+        }
+        return result;
+    }
+
+    // Начало каждого диапазона слой-секция в вершинах, последний элемент - общее число вершин
+    public int[] getSectionStarts() {
+        int[] starts = new int[RANGES + 1];
+        for (int range = 0; range < RANGES; range++) {
+            starts[range + 1] = starts[range] + sizes[range] / FLOATS_PER_VERTEX;
+        }
+        return starts;
+    }
+
+    public static int rangeIndex(int layer, int section) {
+        return layer * Chunk.SECTIONS + section;
+    }
+
+    public static int layerOf(BlockType blockType) {
+        return blockType == BlockType.LEAVES_OAK ? LAYER_CUTOUT : LAYER_OPAQUE;
+    }
+
+    public void addCube(float x, float y, float z, float s,
+                        boolean top, boolean bottom, boolean front,
+                        boolean back, boolean left, boolean right, BlockType blockType) {
+        if (top) addFace(x, y, z, s, FACE_TOP, blockType);
+        if (bottom) addFace(x, y, z, s, FACE_BOTTOM, blockType);
+        if (front) addFace(x, y, z, s, FACE_FRONT, blockType);
+        if (back) addFace(x, y, z, s, FACE_BACK, blockType);
+        if (left) addFace(x, y, z, s, FACE_LEFT, blockType);
+        if (right) addFace(x, y, z, s, FACE_RIGHT, blockType);
+    }
+
+    public void addFace(float x, float y, float z, float s, int faceIndex, BlockType blockType) {
+        // Секция определяется по центру куба: клетка LOD целиком лежит в одной секции
+        int section = Math.max(0, Math.min(Chunk.SECTIONS - 1, (int) Math.floor(y / SECTION_WORLD_HEIGHT)));
+        addFace(section, x, y, z, s, faceIndex, blockType.ordinal());
+    }
+
+    // Для мешеров, которые знают секцию по целой координате клетки; typeIndex - BlockType.ordinal()
+    public void addFace(int section, float x, float y, float z, float s, int faceIndex, int typeIndex) {
+        int range = rangeIndex(TYPE_LAYERS[typeIndex], section);
+        int size = sizes[range];
+        float[] data = this.data[range];
+        if (size + FLOATS_PER_FACE > data.length) {
+            data = this.data[range] = Arrays.copyOf(data, data.length * 2);
+        }
+        float textureType = TEXTURES[typeIndex][faceIndex];
+        float[] corners = CORNERS[faceIndex];
+
+        for (int vertexIndex = 0; vertexIndex < 6; vertexIndex++) {
+            int corner = vertexIndex * 3;
+            data[size++] = x + corners[corner] * s;
+            data[size++] = y + corners[corner + 1] * s;
+            data[size++] = z + corners[corner + 2] * s;
+            data[size++] = 1.0f;
+            data[size++] = 1.0f;
+            data[size++] = 1.0f;
+            data[size++] = UV_COORDS[vertexIndex * 2];
+            data[size++] = UV_COORDS[vertexIndex * 2 + 1];
+            data[size++] = textureType;
+        }
+        sizes[range] = size;
+    }
+
+    // Индекс слоя в массиве текстур блоков (см. TextureManager.BLOCK_LAYERS)
+    private static float getUnitForeTexture(BlockType blockType, int faceIndex) {
+        final float GRASS_TOP_TEX = 0.0f;
+        final float GRASS_SIDE_TEX = 1.0f;
+        final float DIRT_TEX = 2.0f;
+        final float STONE_TEX = 3.0f;
+        final float WOOD_TOP_TEX = 4.0f;
+        final float WOOD_SIDE_TEX = 5.0f;
+        final float COAL_ORE = 6.0f;
+        final float IRON_ORE = 7.0f;
+        final float BEDROCK = 8.0f;
+        final float LEAVES_OAK = 9.0f;
+
+        switch (blockType) {
+            case GRASS -> {
+                if (faceIndex == FACE_TOP) {
+                    return GRASS_TOP_TEX;
+                } else if (faceIndex == FACE_BOTTOM) {
+                    return DIRT_TEX;
+                } else {
+                    return GRASS_SIDE_TEX;
+                }
+            }
+            case DIRT -> {
+                return DIRT_TEX;
+            }
+            case STONE -> {
+                return STONE_TEX;
+            }
+            case WOOD -> {
+                if (faceIndex == FACE_TOP || faceIndex == FACE_BOTTOM) { // Верх и низ
+                    return WOOD_TOP_TEX;
+                } else {
+                    return WOOD_SIDE_TEX;
+                }
+            }
+            case COAL_ORE -> {
+                return COAL_ORE;
+            }
+            case IRON_ORE -> {
+                return IRON_ORE;
+            }
+            case BEDROCK -> {
+                return BEDROCK;
+            }
+            case LEAVES_OAK -> {
+                return LEAVES_OAK;
+            }
+            default -> {
+                return 1.0f;
+            }
+        }
+    }
+}
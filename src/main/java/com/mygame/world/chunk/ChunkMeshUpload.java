@@ -0,0 +1,26 @@
+package com.mygame.world.chunk;
+
+// Задание на загрузку меша, которое поток симуляции передаёт рендеру. Все данные скопированы
+// в момент постановки, поэтому рендер не трогает Chunk и ChunkMesh, которые меняет симуляция.
+public record ChunkMeshUpload(
+        Chunk chunk,
+        float[] vertices,
+        int[] sectionStarts,
+        long[] sectionVisibility,
+        float minX, float minY, float minZ,
+        float maxX, float maxY, float maxZ
+) {
+    public static ChunkMeshUpload of(Chunk chunk, ChunkMesh mesh) {
+        long[] visibility = new long[Chunk.SECTIONS];
+        for (int section = 0; section < Chunk.SECTIONS; section++) {
+            visibility[section] = chunk.getSectionVisibility(section);
+        }
+        return new ChunkMeshUpload(chunk, mesh.getVertices(), mesh.getSectionStarts(), visibility,
+                mesh.getMinX(), mesh.getMinY(), mesh.getMinZ(),
+                mesh.getMaxX(), mesh.getMaxY(), mesh.getMaxZ());
+    }
+
+    public int vertexCount() {
+        return vertices.length / ChunkMeshEmitter.FLOATS_PER_VERTEX;
+    }
+}
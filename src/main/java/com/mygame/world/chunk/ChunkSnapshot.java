@@ -0,0 +1,73 @@
+package com.mygame.world.chunk;
+
+import lombok.Getter;
+
+// Плоская копия чанка с фартуком в один блок от четырёх боковых соседей.
+// Отсечение граней по ней - чистая индексация массива, без хэшей и обращений к соседним чанкам.
+public class ChunkSnapshot {
+    public static final int SIZE_XZ = Chunk.SIZE + 2;
+    public static final int SIZE_Y = Chunk.HEIGHT + 2;
+    // Шаги индекса вдоль осей, x - самая внешняя ось, z - самая внутренняя
+    public static final int STRIDE_X = SIZE_Y * SIZE_XZ;
+    public static final int STRIDE_Y = SIZE_XZ;
+    public static final int STRIDE_Z = 1;
+
+    @Getter
+    private final int chunkX;
+    @Getter
+    private final int chunkZ;
+    // 0 - воздух, иначе BlockType.ordinal() + 1
+    @Getter
+    private final byte[] voxels = new byte[SIZE_XZ * SIZE_Y * SIZE_XZ];
+
+    public ChunkSnapshot(Chunk chunk, Chunk negX, Chunk posX, Chunk negZ, Chunk posZ) {
+        this.chunkX = chunk.getChunkX();
+        this.chunkZ = chunk.getChunkZ();
+
+        for (int x = 0; x < Chunk.SIZE; x++) {
+            for (int y = 0; y < Chunk.HEIGHT; y++) {
+                System.arraycopy(chunk.voxels, Chunk.index(x, y, 0), voxels, index(x, y, 0), Chunk.SIZE);
+            }
+        }
+
+        for (int y = 0; y < Chunk.HEIGHT; y++) {
+            if (negX != null) {
+                System.arraycopy(negX.voxels, Chunk.index(Chunk.SIZE - 1, y, 0), voxels, index(-1, y, 0), Chunk.SIZE);
+            }
+            if (posX != null) {
+                System.arraycopy(posX.voxels, Chunk.index(0, y, 0), voxels, index(Chunk.SIZE, y, 0), Chunk.SIZE);
+            }
+            for (int x = 0; x < Chunk.SIZE; x++) {
+                if (negZ != null) {
+                    voxels[index(x, y, -1)] = negZ.voxels[Chunk.index(x, y, Chunk.SIZE - 1)];
+                }
+                if (posZ != null) {
+                    voxels[index(x, y, Chunk.SIZE)] = posZ.voxels[Chunk.index(x, y, 0)];
+                }
+            }
+        }
+    }
+
+    // Координаты локальные для центрального чанка, допустимы значения от -1 до SIZE (HEIGHT) включительно
+    public static int index(int x, int y, int z) {
+        return (x + 1) * STRIDE_X + (y + 1) * STRIDE_Y + (z + 1);
+    }
+
+    public byte get(int x, int y, int z) {
+        return voxels[index(x, y, z)];
+    }
+
+    public boolean isAir(int x, int y, int z) {
+        return voxels[index(x, y, z)] == 0;
+    }
+
+    // FNV-1a по всему снимку вместе с фартуком: меш зависит и от соседних блоков
+    public long contentHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (byte voxel : voxels) {
+            hash ^= voxel;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
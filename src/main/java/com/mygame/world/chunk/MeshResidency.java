@@ -0,0 +1,11 @@
+package com.mygame.world.chunk;
+
+// Что делать с CPU-копией вершин после загрузки меша в VBO
+public enum MeshResidency {
+    // Копия остаётся в куче (нужно, например, для отладки)
+    KEEP,
+    // Копия выбрасывается, для повторной загрузки меш строится заново
+    DROP_AFTER_UPLOAD,
+    // Копия хранится сжатой и распаковывается только для повторной загрузки
+    COMPRESS_AFTER_UPLOAD
+}
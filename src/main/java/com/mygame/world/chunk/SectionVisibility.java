@@ -0,0 +1,116 @@
+package com.mygame.world.chunk;
+
+import com.mygame.world.block.BlockType;
+
+import java.util.Arrays;
+
+// Граф видимости секции 16x16x16: какие пары из шести граней соединены через непрозрачные для взгляда
+// клетки (воздух и листва). Бит a * 6 + b установлен, если из грани a можно пройти к грани b.
+// Грани нумеруются как в ChunkMeshEmitter: верх, низ, перед (+z), зад (-z), лево (-x), право (+x).
+public class SectionVisibility {
+    public static final int FACES = 6;
+    // Все грани связаны со всеми - секция из одного воздуха
+    public static final long ALL = (1L << (FACES * FACES)) - 1;
+    public static final long NONE = 0L;
+
+    private static final int SIZE = Chunk.SIZE;
+    private static final int HEIGHT = Chunk.SECTION_HEIGHT;
+    private static final byte LEAVES = (byte) (BlockType.LEAVES_OAK.ordinal() + 1);
+
+    // Переиспользуемые буферы заливки, по экземпляру на поток
+    private final boolean[] visited = new boolean[SIZE * HEIGHT * SIZE];
+    private final int[] queue = new int[SIZE * HEIGHT * SIZE];
+
+    public static boolean connects(long visibility, int from, int to) {
+        return (visibility & (1L << (from * FACES + to))) != 0;
+    }
+
+    public static int opposite(int face) {
+        // Пары граней идут подряд: 0-1, 2-3, 4-5
+        return face ^ 1;
+    }
+
+    public long compute(byte[] voxels, int section) {
+        int baseY = section * HEIGHT;
+
+        // Быстрые пути: секция целиком проходима или целиком сплошная
+        int open = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int row = Chunk.index(x, baseY + y, 0);
+                for (int z = 0; z < SIZE; z++) {
+                    if (isOpen(voxels[row + z])) open++;
+                }
+            }
+        }
+        if (open == 0) return NONE;
+        if (open == visited.length) return ALL;
+
+        Arrays.fill(visited, false);
+        long visibility = NONE;
+        for (int start = 0; start < visited.length; start++) {
+            if (visited[start] || !isOpen(voxels[toChunkIndex(start, baseY)])) continue;
+
+            int faces = fill(voxels, baseY, start);
+            for (int a = 0; a < FACES; a++) {
+                if ((faces & (1 << a)) == 0) continue;
+                for (int b = 0; b < FACES; b++) {
+                    if ((faces & (1 << b)) != 0) {
+                        visibility |= 1L << (a * FACES + b);
+                    }
+                }
+            }
+        }
+        return visibility;
+    }
+
+    // Заливка одной связной области, возвращает маску граней секции, которых она касается
+    private int fill(byte[] voxels, int baseY, int start) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        int faces = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell / (HEIGHT * SIZE);
+            int y = cell / SIZE % HEIGHT;
+            int z = cell % SIZE;
+
+            if (y == HEIGHT - 1) faces |= 1 << ChunkMeshEmitter.FACE_TOP;
+            if (y == 0) faces |= 1 << ChunkMeshEmitter.FACE_BOTTOM;
+            if (z == SIZE - 1) faces |= 1 << ChunkMeshEmitter.FACE_FRONT;
+            if (z == 0) faces |= 1 << ChunkMeshEmitter.FACE_BACK;
+            if (x == 0) faces |= 1 << ChunkMeshEmitter.FACE_LEFT;
+            if (x == SIZE - 1) faces |= 1 << ChunkMeshEmitter.FACE_RIGHT;
+
+            if (y + 1 < HEIGHT) tail = visit(voxels, baseY, cell + SIZE, tail);
+            if (y > 0) tail = visit(voxels, baseY, cell - SIZE, tail);
+            if (z + 1 < SIZE) tail = visit(voxels, baseY, cell + 1, tail);
+            if (z > 0) tail = visit(voxels, baseY, cell - 1, tail);
+            if (x > 0) tail = visit(voxels, baseY, cell - HEIGHT * SIZE, tail);
+            if (x + 1 < SIZE) tail = visit(voxels, baseY, cell + HEIGHT * SIZE, tail);
+        }
+        return faces;
+    }
+
+    private int visit(byte[] voxels, int baseY, int cell, int tail) {
+        if (visited[cell] || !isOpen(voxels[toChunkIndex(cell, baseY)])) return tail;
+        visited[cell] = true;
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    // Индекс клетки секции [(x * HEIGHT + y) * SIZE + z] в индекс массива чанка
+    private static int toChunkIndex(int cell, int baseY) {
+        int x = cell / (HEIGHT * SIZE);
+        int y = cell / SIZE % HEIGHT;
+        int z = cell % SIZE;
+        return Chunk.index(x, baseY + y, z);
+    }
+
+    private static boolean isOpen(byte id) {
+        return id == 0 || id == LEAVES;
+    }
+}
@@ -5,8 +5,12 @@ layout (location = 1) in vec3 aColor;
 layout (location = 2) in vec2 aTexCoord;
 layout (location = 3) in float aTextureType;
 
-uniform mat4 uProjection;
-uniform mat4 uView;
+// Общий для всех программ буфер камеры, обновляется раз за кадр
+layout (std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
+
 uniform mat4 uModel;
 
 out vec3 fragColor;
@@ -0,0 +1,18 @@
+#version 330 core
+
+layout (location = 0) in vec3 aPosition;
+layout (location = 1) in vec3 aColor;
+// Матрица модели экземпляра, по столбцу на атрибут 4..7
+layout (location = 4) in mat4 aInstanceModel;
+
+layout (std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
+
+out vec3 fragColor;
+
+void main() {
+    fragColor = aColor;
+    gl_Position = uProjection * uView * aInstanceModel * vec4(aPosition, 1.0);
+}
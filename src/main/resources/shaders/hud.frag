@@ -0,0 +1,18 @@
+#version 330 core
+
+in vec3 fragColor;
+in vec2 texCoord;
+
+uniform sampler2D hudTexture;
+
+out vec4 FragColor;
+
+void main() {
+    // Цвет вершины тонирует текстуру: с белой текстурой получаются однотонные плашки
+    vec4 texColor = texture(hudTexture, texCoord) * vec4(fragColor, 1.0);
+
+    if (texColor.a < 0.1)
+        discard;
+
+    FragColor = texColor;
+}
@@ -3,13 +3,14 @@
 in vec2 texCoord;
 in float textureType;
 
-uniform sampler2D textures[11];
+// Все текстуры блоков - слои одного массива, слой приходит из вершины.
+// Только для вырезанного слоя (листва): discard отключает ранний тест глубины.
+uniform sampler2DArray blockTextures;
 
 out vec4 FragColor;
 
 void main() {
-    int idx = int(textureType);
-    vec4 texColor = texture(textures[idx], texCoord);
+    vec4 texColor = texture(blockTextures, vec3(texCoord, textureType));
 
     if (texColor.a < 0.1)
         discard;
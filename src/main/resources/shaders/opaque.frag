@@ -0,0 +1,13 @@
+#version 330 core
+
+in vec2 texCoord;
+in float textureType;
+
+// Непрозрачный слой: без discard, чтобы драйвер оставил ранний тест глубины
+uniform sampler2DArray blockTextures;
+
+out vec4 FragColor;
+
+void main() {
+    FragColor = vec4(texture(blockTextures, vec3(texCoord, textureType)).rgb, 1.0);
+}